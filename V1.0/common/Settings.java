@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 
+import processor.communication.message.MessageCodec;
 import processor.server.DataOutputScope;
 import traffic.light.TrafficLightTiming;
 import traffic.routing.RouteLeg;
@@ -24,6 +25,9 @@ public class Settings {
 	public static double numStepsPerSecond = 5;//This determines the step length.
 	public static int pauseTimeBetweenStepsInMilliseconds = 0;//Can be used to adjust pace so a user can slow down simulation on GUI
 	public static int trafficReportStepGapInServerlessMode = 1;
+	public static int numTrafficReportsPerKeyframe = 50;//Traffic reports from a keyframe to the next keyframe, which contains all vehicles and lights. Other reports only contain changes. If not positive, keyframes are only sent after reset.
+	public static int numThreadsPerWorker = 1;//Number of threads used by a worker for simulating one step. Results are the same for any number of threads.
+	public static long randomSeed = 0;//Seed of random numbers, from which each worker gets its own seeds. A run can be repeated with the same results if this is not 0.
 
 	/*
 	 * Display
@@ -37,6 +41,8 @@ public class Settings {
 	 */
 	public static boolean isServerBased = true;//Whether workers receive instructions from server for each step
 	public static boolean isSharedJVM = false;//Whether server and workers use the same JVM
+	public static MessageCodec.Type messageCodec = MessageCodec.Type.BINARY;//Format of sent messages. Received messages can be in any format.
+	public static int numMessageDispatchThreads = Math.max(2, Runtime.getRuntime().availableProcessors());//Number of threads in a JVM for processing received messages. Messages from one connection are processed in order.
 	public static int numWorkers = 1;//Number of workers that run simulation in parallel
 	public static int numGridRows = 0;//Number of rows in the virtual grid covering simulation area
 	public static int numGridCols = 0;//Number of columns in the virtual grid covering simulation area
@@ -103,6 +109,9 @@ public class Settings {
 	public static ArrayList<double[]> listRouteDestinationWindowForInternalVehicle = new ArrayList<>();//List of windows where random routes end
 	public static ArrayList<double[]> listRouteSourceDestinationWindowForInternalVehicle = new ArrayList<>();//List of windows where random routes start or end
 	public static boolean isAllowPriorityVehicleUseTramTrack = true;//Whether priority vehicles can use tram edge
+	public static int numLandmarksInAltAStar = 8;//Number of landmarks used for estimating distances in ALT A*
+	public static double stretchInAltAStar = 1;//Routes found by ALT A* are at most this many times longer than the shortest routes. Larger value makes search faster.
+	public static int routeCacheSize = 10000;//Maximum number of routes kept for reuse by new vehicles and re-routed vehicles. Zero disables the cache.
 
 	/*
 	 * Vehicle model
@@ -114,6 +123,10 @@ public class Settings {
 	public static double minGapBetweenTramStopTimerCountDowns = 3;//In seconds. When tram stop timer reaches 0, it cannot be triggered again immediately when this value is positive. 
 	public static boolean isAllowReroute = false;//Whether imported vehicles can change routes automatically in congested traffic
 	public static int maxNumReRouteOfVehicle = 5;//The system removes an internal vehicle if it has been re-routed for too many times.
+	public static int maxNumReRoutesPerStep = 200;//Maximum number of new routes computed for re-routed vehicles in one step. Other vehicles wait for later steps. Non-positive value means no limit.
+	public static double edgeSpeedSmoothingFactor = 0.05;//Weight of the speed of one vehicle in the smoothed speed estimate of its edge, which is used by congestion-aware routing
+	public static int numStepsPerTravelTimeSnapshot = 25;//Congestion-aware routing uses travel times updated after this number of steps
+	public static int numStepsToKeepShortestPathTree = 0;//If positive, routes of internal vehicles are taken from shortest path trees of their start nodes, which are rebuilt after this number of steps
 	public static EmergencyStrategy emergencyStrategy = EmergencyStrategy.NonEmergencyPullOffToRoadside;//How non-priority vehicle reacts to priority vehicles, e.g., ambulance, police car, etc.
 	public static double congestionSpeedThreshold = 1;//In m/s. The maximum speed of a traffic congestion.
 	public static boolean isDriveOnLeft = true;
@@ -1,59 +1,79 @@
 package processor.communication;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+import common.Settings;
 
 /**
  * Listens connection request on a given port and builds socket connections upon
- * request. When a new connection is established, a new thread will be created
- * for processing messages sent from the other end of the connection. This class
- * builds connections for server-worker and worker-worker communications.
+ * request. Connections are served by the NetworkTransport of this JVM, which
+ * reads messages from all the connections with one thread and processes them
+ * with a fixed number of threads. This class builds connections for
+ * server-worker and worker-worker communications.
+ *
+ * When server and workers run in the same JVM, senders in the JVM connect to
+ * the builder directly. Their messages are passed as objects through in-memory
+ * queues without serialization.
  *
  */
-public class IncomingConnectionBuilder extends Thread {
+public class IncomingConnectionBuilder {
+	/**
+	 * Builders in this JVM that accept in-process connections, keyed by port.
+	 */
+	static final ConcurrentHashMap<Integer, IncomingConnectionBuilder> inProcessBuilders = new ConcurrentHashMap<>();
+
+	/**
+	 * Connect to a builder in this JVM.
+	 *
+	 * @return Listener of the new in-process connection, or null if no builder
+	 *         in this JVM uses the port.
+	 */
+	static MessageListener connectInProcess(final int port) {
+		final IncomingConnectionBuilder builder = inProcessBuilders.get(port);
+		final NetworkTransport transport = builder == null ? null : builder.transport;
+		if (transport == null) {
+			return null;
+		}
+		return transport.acceptInProcess(builder);
+	}
+
 	int port;
 	MessageHandler messageHandler;
-	boolean running = true;
-	ServerSocket incomingConnectionRequestSocket;
+	ServerSocketChannel serverChannel;
 	ArrayList<MessageListener> incomingConnections = new ArrayList<>();
+	NetworkTransport transport = null;
 
 	public IncomingConnectionBuilder(final int port, final MessageHandler messageHandler) {
 		this.port = port;
 		this.messageHandler = messageHandler;
 	}
 
-	@Override
-	public void run() {
+	/**
+	 * Start accepting connection requests.
+	 */
+	public void start() {
 		try {
-			incomingConnectionRequestSocket = new ServerSocket();
-			incomingConnectionRequestSocket.bind(new InetSocketAddress(port));
-			while (running) {
-				final Socket newSocket = incomingConnectionRequestSocket.accept();
-				final MessageListener messageListener = new MessageListener(newSocket, messageHandler);
-				incomingConnections.add(messageListener);
-				final Thread thread = new Thread(messageListener);
-				thread.start();
+			serverChannel = ServerSocketChannel.open();
+			serverChannel.bind(new InetSocketAddress(port));
+			serverChannel.configureBlocking(false);
+			transport = NetworkTransport.open(this);
+			if (Settings.isSharedJVM) {
+				inProcessBuilders.put(port, this);
 			}
-		} catch (final SocketException socketException) {
-			System.out.println("ConnectionBuilder thread ends.");
-			return;
-		} catch (final Exception e) {
+		} catch (final IOException e) {
 			e.printStackTrace();
 		}
 	}
 
 	public void terminate() {
-		try {
-			for (final MessageListener listener : incomingConnections) {
-				listener.terminate();
-			}
-			incomingConnectionRequestSocket.close();
-			running = false;
-		} catch (final Exception e) {
-			e.printStackTrace();
+		inProcessBuilders.remove(port, this);
+		if (transport != null) {
+			transport.close(this);
+			transport = null;
 		}
 	}
 }
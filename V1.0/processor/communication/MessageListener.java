@@ -1,76 +1,173 @@
 package processor.communication;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.Socket;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import processor.communication.message.MessageUtil;
 
 /**
- * This class passes the received messages to message handler for processing.
+ * This class passes the messages received from a connection to message handler
+ * for processing. Received messages are queued and processed by a shared
+ * executor one at a time, so messages from the same connection are processed
+ * in the order in which they are sent.
+ *
+ * For a network connection, data is read by the selector thread of
+ * NetworkTransport. Each message is a frame that starts with the number of
+ * bytes of the encoded message. Complete frames are queued and decoded before
+ * processing. For an in-process connection, the sender queues the message
+ * object itself.
  *
  */
-public class MessageListener implements Runnable {
+public class MessageListener {
 	class MessageProcessRunnable implements Runnable {
-
-		String input = "";
-
-		public MessageProcessRunnable(final String string) {
-			input = string;
-		}
-
+		@Override
 		public void run() {
-			final Object received = MessageUtil.read(input);
-			messageHandler.processReceivedMsg(received);
+			for (int i = 0; i < maxNumMessagesPerTask; i++) {
+				final Object item = receivedMessages.poll();
+				try {
+					final Object received = item instanceof byte[]
+							? MessageUtil.decode((byte[]) item, 0, ((byte[]) item).length) : item;
+					messageHandler.processReceivedMsg(received);
+				} catch (final Exception e) {
+					e.printStackTrace();
+				}
+				if (numPendingMessages.decrementAndGet() == 0) {
+					return;
+				}
+			}
+			// Let other connections use this thread before processing the remaining messages
+			executor.execute(this);
 		}
 	}
 
-	Socket socket = null;
-	BufferedReader bufferedReader;
-	InputStream inputStream;
-	InputStreamReader inputStreamReader;
+	static final int maxNumMessagesPerTask = 64;
+
+	SocketChannel channel = null;
 	MessageHandler messageHandler = null;
+	Executor executor;
+	ByteBuffer readBuffer = null;
+	/**
+	 * Frame being received. It is null when the length of the next frame is not
+	 * received yet.
+	 */
+	byte[] frame = null;
+	int numFrameBytesReceived = 0;
+	/**
+	 * Received frames or message objects. Items are added by the selector
+	 * thread or the in-process sender and taken by the task that processes
+	 * messages.
+	 */
+	final SpscQueue<Object> receivedMessages = new SpscQueue<>();
+	/**
+	 * Number of queued messages that are not processed yet. A task for
+	 * processing messages is submitted when this changes from zero, so at most
+	 * one task processes the messages of this connection at any time.
+	 */
+	final AtomicInteger numPendingMessages = new AtomicInteger(0);
+	final MessageProcessRunnable messageProcessRunnable = new MessageProcessRunnable();
+	volatile boolean isTerminated = false;
 
-	boolean running = true;
+	/**
+	 * Create a listener for an in-process connection.
+	 *
+	 * @param messageHandler
+	 *            Entity that processes received messages.
+	 * @param executor
+	 *            Executor that runs the processing of messages.
+	 */
+	public MessageListener(final MessageHandler messageHandler, final Executor executor) {
+		this.messageHandler = messageHandler;
+		this.executor = executor;
+	}
 
 	/**
-	 * @param socket
+	 * @param channel
 	 *            An established connection.
 	 * @param messageHandler
 	 *            Entity that processes received messages.
+	 * @param executor
+	 *            Executor that runs the processing of messages.
 	 */
-	public MessageListener(final Socket socket, final MessageHandler messageHandler) {
-		this.socket = socket;
+	public MessageListener(final SocketChannel channel, final MessageHandler messageHandler,
+			final Executor executor) {
+		this.channel = channel;
 		this.messageHandler = messageHandler;
+		this.executor = executor;
+		readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+	}
+
+	/**
+	 * Queue a received frame or message for processing. Must not be called by
+	 * more than one thread at the same time.
+	 */
+	void enqueue(final Object item) {
+		receivedMessages.offer(item);
+		if (numPendingMessages.getAndIncrement() == 0) {
+			executor.execute(messageProcessRunnable);
+		}
 	}
 
 	/**
-	 * Constantly listen for messages. When a message arrives, starts a new
-	 * thread to handle it.
+	 * Read available data from the connection. Complete frames are queued for
+	 * processing.
 	 */
-	@Override
-	public void run() {
+	void read() {
 		try {
-			inputStream = socket.getInputStream();
-			inputStreamReader = new InputStreamReader(inputStream);
-			bufferedReader = new BufferedReader(inputStreamReader);
-			String nextLine;
-			while (running && ((nextLine = bufferedReader.readLine()) != null)) {
-				final Thread thread = new Thread(new MessageProcessRunnable(nextLine));
-				thread.start();
+			final int numBytesRead = channel.read(readBuffer);
+			if (numBytesRead < 0) {
+				terminate();
+				return;
 			}
-		} catch (final Exception e) {
+			readBuffer.flip();
+			while (true) {
+				if (frame == null) {
+					if (readBuffer.remaining() < 4) {
+						break;
+					}
+					final int frameLength = readBuffer.getInt();
+					if (frameLength < 0) {
+						terminate();
+						return;
+					}
+					frame = new byte[frameLength];
+					numFrameBytesReceived = 0;
+				}
+				final int numBytesToCopy = Math.min(readBuffer.remaining(), frame.length - numFrameBytesReceived);
+				readBuffer.get(frame, numFrameBytesReceived, numBytesToCopy);
+				numFrameBytesReceived += numBytesToCopy;
+				if (numFrameBytesReceived < frame.length) {
+					break;
+				}
+				enqueue(frame);
+				frame = null;
+			}
+			readBuffer.compact();
+		} catch (final IOException e) {
+			terminate();
+		}
+	}
+
+	/**
+	 * Receive a message from an in-process sender. The message object is
+	 * passed to the message handler without copying, so the sender must not
+	 * change the message afterwards.
+	 */
+	void receive(final Object message) {
+		if (!isTerminated) {
+			enqueue(message);
 		}
 	}
 
 	public void terminate() {
+		isTerminated = true;
+		if (channel == null) {
+			return;
+		}
 		try {
-			bufferedReader.close();
-			inputStreamReader.close();
-			inputStream.close();
-			socket.close();
-			running = false;
+			channel.close();
 		} catch (final Exception e) {
 			e.printStackTrace();
 		}
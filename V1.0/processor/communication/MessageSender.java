@@ -1,49 +1,142 @@
 package processor.communication;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.net.SocketException;
-import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
 
+import common.Settings;
+import processor.communication.message.MessageCodec;
 import processor.communication.message.MessageUtil;
 
+/**
+ * Sends messages through a connection. Each message is sent as a frame, which
+ * starts with the number of bytes of the encoded message. Frames are written
+ * from a reusable direct buffer.
+ *
+ * A thread can start a batch, e.g., at the start of a phase of a step. The
+ * messages sent by the thread are then kept in the buffer until the batch is
+ * flushed, so all the messages of the phase are written to the connection at
+ * once. Messages sent by other threads are written immediately, together with
+ * the messages kept for the batch, so the order of messages is kept.
+ *
+ * When server and workers run in the same JVM, the sender connects to the
+ * receiver in the JVM directly and passes message objects without encoding
+ * them. The sender must not change a message after sending it.
+ *
+ */
 public class MessageSender {
 	public String address;
 	public int port;
 	public Socket socket;
-	PrintWriter out = null;
-	MessageUtil messageUtil = new MessageUtil();
+	SocketChannel channel = null;
+	/**
+	 * Frames that are not written yet. The buffer is in write mode.
+	 */
+	ByteBuffer writeBuffer = ByteBuffer.allocateDirect(64 * 1024);
+	/**
+	 * Thread whose messages are kept until flush. It is null if there is no
+	 * batch.
+	 */
+	Thread batchingThread = null;
+	MessageCodec.Type codecType = Settings.messageCodec;
+	MessageCodec codec = MessageUtil.createCodec(codecType);
+	/**
+	 * Receiver of messages when the receiver is in the same JVM.
+	 */
+	MessageListener inProcessListener = null;
 
-	public MessageSender(final Socket socket) {
+	public MessageSender(final SocketChannel channel) {
 		try {
-			this.socket = socket;
-			this.socket.setTcpNoDelay(true);
-			out = new PrintWriter(this.socket.getOutputStream(), true);
-		} catch (final SocketException e) {
-			e.printStackTrace();
+			this.channel = channel;
+			socket = channel.socket();
+			socket.setTcpNoDelay(true);
 		} catch (final IOException e) {
 			e.printStackTrace();
 		}
 	}
 
 	public MessageSender(final String receiverAddress, final int receiverPort) {
+		address = receiverAddress;
+		port = receiverPort;
+		if (Settings.isSharedJVM) {
+			inProcessListener = IncomingConnectionBuilder.connectInProcess(receiverPort);
+			if (inProcessListener != null) {
+				return;
+			}
+		}
 		try {
-
-			socket = new Socket(receiverAddress, receiverPort);
-
+			channel = SocketChannel.open(new InetSocketAddress(receiverAddress, receiverPort));
+			socket = channel.socket();
 			socket.setTcpNoDelay(true);
-			out = new PrintWriter(socket.getOutputStream(), true);
-		} catch (final UnknownHostException e) {
+		} catch (final IOException e) {
 			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Write the kept messages and stop the batch.
+	 */
+	public synchronized void endBatch() {
+		batchingThread = null;
+		flush();
+	}
+
+	/**
+	 * Write the kept messages. The batch continues if it is started.
+	 */
+	public synchronized void flush() {
+		if (writeBuffer.position() == 0) {
+			return;
+		}
+		writeBuffer.flip();
+		try {
+			while (writeBuffer.hasRemaining()) {
+				channel.write(writeBuffer);
+			}
 		} catch (final IOException e) {
 			e.printStackTrace();
 		}
-		address = receiverAddress;
-		port = receiverPort;
+		writeBuffer.clear();
+	}
+
+	public synchronized void send(final Object message) {
+		if (inProcessListener != null) {
+			// No system call is involved, so there is no need to batch messages
+			inProcessListener.receive(message);
+			return;
+		}
+		if (codecType != Settings.messageCodec) {
+			codecType = Settings.messageCodec;
+			codec = MessageUtil.createCodec(codecType);
+		}
+		final int length = codec.encode(message);
+		// A message that cannot be encoded is not sent, so the receiver does not get a broken frame
+		if (length < 0) {
+			return;
+		}
+		if (writeBuffer.remaining() < (length + 4)) {
+			final ByteBuffer newBuffer = ByteBuffer
+					.allocateDirect(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + length + 4));
+			writeBuffer.flip();
+			newBuffer.put(writeBuffer);
+			writeBuffer = newBuffer;
+		}
+		writeBuffer.putInt(length);
+		writeBuffer.put(codec.getEncodedBytes(), 0, length);
+		if (batchingThread != Thread.currentThread()) {
+			flush();
+		}
 	}
 
-	public void send(final Object message) {
-		out.println(messageUtil.compose(message));
+	/**
+	 * Keep the messages sent by the current thread until flush.
+	 */
+	public synchronized void startBatch() {
+		if (batchingThread != Thread.currentThread()) {
+			flush();
+			batchingThread = Thread.currentThread();
+		}
 	}
 }
@@ -0,0 +1,187 @@
+package processor.communication;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import common.Settings;
+
+/**
+ * Receives messages for all the incoming connections of this JVM. One thread
+ * waits for new connections and incoming data on all the connections using a
+ * selector. Received messages are processed by a fixed number of threads.
+ * Messages from one connection are processed one at a time in the order in
+ * which they arrive, so the number of threads does not grow with the number of
+ * messages or connections.
+ *
+ * Messages of in-process connections are processed by the same threads.
+ *
+ * The transport starts when the first connection builder is opened and stops
+ * after the last connection builder is closed.
+ *
+ */
+public class NetworkTransport implements Runnable {
+	static NetworkTransport instance = null;
+
+	/**
+	 * Start receiving connections and messages for a connection builder whose
+	 * server channel is bound. The transport of this JVM is started if it is
+	 * not running.
+	 *
+	 * @return The transport that serves the connection builder.
+	 */
+	static synchronized NetworkTransport open(final IncomingConnectionBuilder connectionBuilder) throws IOException {
+		if (instance == null) {
+			instance = new NetworkTransport();
+			final Thread thread = new Thread(instance, "NetworkTransport");
+			thread.start();
+		}
+		final NetworkTransport transport = instance;
+		transport.connectionBuilders.add(connectionBuilder);
+		transport.runInSelectorThread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					connectionBuilder.serverChannel.register(transport.selector, SelectionKey.OP_ACCEPT,
+							connectionBuilder);
+				} catch (final ClosedChannelException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		return transport;
+	}
+
+	final Selector selector;
+	final ExecutorService dispatchExecutor;
+	/**
+	 * Changes of channels that must be done in the selector thread.
+	 */
+	final ConcurrentLinkedQueue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+	final ArrayList<IncomingConnectionBuilder> connectionBuilders = new ArrayList<>();
+	volatile boolean running = true;
+
+	NetworkTransport() throws IOException {
+		selector = Selector.open();
+		final int numThreads = Math.max(1, Settings.numMessageDispatchThreads);
+		// Each connection has at most one task in the queue, so the size of the queue is bounded by the number of connections
+		dispatchExecutor = new ThreadPoolExecutor(numThreads, numThreads, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					int numThreadsCreated = 0;
+
+					@Override
+					public synchronized Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r, "MessageDispatcher-" + numThreadsCreated++);
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	void accept(final IncomingConnectionBuilder connectionBuilder) {
+		try {
+			final SocketChannel channel = connectionBuilder.serverChannel.accept();
+			if (channel == null) {
+				return;
+			}
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			final MessageListener listener = new MessageListener(channel, connectionBuilder.messageHandler,
+					dispatchExecutor);
+			connectionBuilder.incomingConnections.add(listener);
+			channel.register(selector, SelectionKey.OP_READ, listener);
+		} catch (final IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Create an in-process connection to a connection builder.
+	 */
+	MessageListener acceptInProcess(final IncomingConnectionBuilder connectionBuilder) {
+		final MessageListener listener = new MessageListener(connectionBuilder.messageHandler, dispatchExecutor);
+		runInSelectorThread(new Runnable() {
+			@Override
+			public void run() {
+				connectionBuilder.incomingConnections.add(listener);
+			}
+		});
+		return listener;
+	}
+
+	/**
+	 * Stop receiving connections and messages for a connection builder. The
+	 * transport stops if no connection builder is open.
+	 */
+	void close(final IncomingConnectionBuilder connectionBuilder) {
+		runInSelectorThread(new Runnable() {
+			@Override
+			public void run() {
+				for (final MessageListener listener : connectionBuilder.incomingConnections) {
+					listener.terminate();
+				}
+				connectionBuilder.incomingConnections.clear();
+				try {
+					connectionBuilder.serverChannel.close();
+				} catch (final IOException e) {
+					e.printStackTrace();
+				}
+				synchronized (NetworkTransport.class) {
+					connectionBuilders.remove(connectionBuilder);
+					if (connectionBuilders.isEmpty()) {
+						running = false;
+						instance = null;
+					}
+				}
+			}
+		});
+	}
+
+	@Override
+	public void run() {
+		try {
+			while (running) {
+				Runnable task;
+				while ((task = pendingTasks.poll()) != null) {
+					task.run();
+				}
+				if (!running) {
+					break;
+				}
+				selector.select();
+				final Iterator<SelectionKey> iKey = selector.selectedKeys().iterator();
+				while (iKey.hasNext()) {
+					final SelectionKey key = iKey.next();
+					iKey.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept((IncomingConnectionBuilder) key.attachment());
+					} else if (key.isReadable()) {
+						((MessageListener) key.attachment()).read();
+					}
+				}
+			}
+			selector.close();
+		} catch (final IOException e) {
+			e.printStackTrace();
+		}
+		dispatchExecutor.shutdown();
+	}
+
+	void runInSelectorThread(final Runnable task) {
+		pendingTasks.add(task);
+		selector.wakeup();
+	}
+}
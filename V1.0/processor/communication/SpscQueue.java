@@ -0,0 +1,72 @@
+package processor.communication;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Unbounded lock-free queue for one producer and one consumer. Items are
+ * stored in linked chunks of slots. The producer publishes an item by setting
+ * its slot and the consumer takes items in the same order, so no lock is
+ * needed. Different threads may act as the producer or the consumer at
+ * different times, as long as the handover between them is synchronized,
+ * e.g., by a lock or an atomic counter.
+ *
+ * The queue is unbounded so that a producer never waits for a consumer. This
+ * avoids deadlocks when two processors send messages to each other while
+ * processing received messages.
+ *
+ */
+public class SpscQueue<T> {
+	static class Chunk<T> {
+		final AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(chunkSize);
+		volatile Chunk<T> next = null;
+	}
+
+	static final int chunkSize = 256;
+
+	// Used by producer only
+	Chunk<T> producerChunk;
+	int producerIndex = 0;
+	// Used by consumer only
+	Chunk<T> consumerChunk;
+	int consumerIndex = 0;
+
+	public SpscQueue() {
+		producerChunk = new Chunk<>();
+		consumerChunk = producerChunk;
+	}
+
+	/**
+	 * Add an item at the end of the queue. Must be called by the producer.
+	 */
+	public void offer(final T item) {
+		if (producerIndex == chunkSize) {
+			final Chunk<T> chunk = new Chunk<>();
+			producerChunk.next = chunk;
+			producerChunk = chunk;
+			producerIndex = 0;
+		}
+		producerChunk.slots.lazySet(producerIndex++, item);
+	}
+
+	/**
+	 * Take the item at the start of the queue. Must be called by the consumer.
+	 *
+	 * @return The item, or null if the queue is empty.
+	 */
+	public T poll() {
+		if (consumerIndex == chunkSize) {
+			final Chunk<T> next = consumerChunk.next;
+			if (next == null) {
+				return null;
+			}
+			consumerChunk = next;
+			consumerIndex = 0;
+		}
+		final T item = consumerChunk.slots.get(consumerIndex);
+		if (item != null) {
+			// Release the item so it can be garbage collected with the message
+			consumerChunk.slots.lazySet(consumerIndex++, null);
+		}
+		return item;
+	}
+}
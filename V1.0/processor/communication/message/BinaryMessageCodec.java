@@ -0,0 +1,402 @@
+package processor.communication.message;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary codec. The public fields of a message class are found once
+ * and kept in a serializer of the class. Fields are written in the order of
+ * their names, so the format does not depend on the order in which the JVM
+ * lists the fields.
+ *
+ * Integers are written as variable-length numbers, so small values such as
+ * indexes take one or two bytes. Doubles and floats keep all their bits, so
+ * the receiver gets exactly the values that were sent. The bytes of a double
+ * are reversed and written as a variable-length number, so values with short
+ * mantissas, such as zero and whole numbers, take few bytes. Strings are
+ * coded with a dictionary for each message: a string is written in full the
+ * first time it appears in the message and as a number afterwards. Strings
+ * that repeat in many items, such as vehicle types and driver profiles, cost
+ * one byte after their first appearance. Enum fields are written as the index
+ * of the constant.
+ *
+ * Fields can be of primitive types, strings, enums, or array lists of objects
+ * whose fields follow the same rules. Items in lists must not be null.
+ *
+ * A message starts with the id of its class, which is the index of the class
+ * in {@link #messageClasses}. The serializers of message classes are created
+ * once and looked up by the id when a message is decoded. Only the classes in
+ * the array can be sent with this codec.
+ */
+public class BinaryMessageCodec implements MessageCodec {
+
+	/**
+	 * Field types that can be serialized.
+	 */
+	enum FieldKind {
+		BOOLEAN, BYTE, SHORT, INT, LONG, FLOAT, DOUBLE, STRING, ENUM, LIST
+	}
+
+	/**
+	 * Reads values from an encoded message.
+	 */
+	static class Reader {
+		final byte[] data;
+		int position;
+		final ArrayList<String> strings = new ArrayList<>();
+
+		Reader(final byte[] data, final int offset) {
+			this.data = data;
+			position = offset;
+		}
+
+		double readDouble() {
+			return Double.longBitsToDouble(Long.reverseBytes(readUnsignedVarLong()));
+		}
+
+		float readFloat() {
+			return Float.intBitsToFloat(Integer.reverseBytes((int) readUnsignedVarLong()));
+		}
+
+		Object readObject(final ClassSerializer serializer) throws Exception {
+			final Object object = serializer.constructor.newInstance();
+			for (int i = 0; i < serializer.fields.length; i++) {
+				final Field field = serializer.fields[i];
+				switch (serializer.kinds[i]) {
+				case BOOLEAN:
+					field.setBoolean(object, data[position++] != 0);
+					break;
+				case BYTE:
+					field.setByte(object, (byte) readVarLong());
+					break;
+				case SHORT:
+					field.setShort(object, (short) readVarLong());
+					break;
+				case INT:
+					field.setInt(object, (int) readVarLong());
+					break;
+				case LONG:
+					field.setLong(object, readVarLong());
+					break;
+				case FLOAT:
+					field.setFloat(object, readFloat());
+					break;
+				case DOUBLE:
+					field.setDouble(object, readDouble());
+					break;
+				case STRING:
+					field.set(object, readString());
+					break;
+				case ENUM: {
+					final int ordinal = (int) readVarLong();
+					field.set(object, ordinal < 0 ? null : serializer.enumConstants[i][ordinal]);
+					break;
+				}
+				case LIST: {
+					final int size = (int) readVarLong();
+					if (size < 0) {
+						field.set(object, null);
+						break;
+					}
+					final ClassSerializer itemSerializer = getSerializer(serializer.itemClasses[i]);
+					final ArrayList<Object> list = new ArrayList<>(size);
+					for (int j = 0; j < size; j++) {
+						list.add(readObject(itemSerializer));
+					}
+					field.set(object, list);
+					break;
+				}
+				}
+			}
+			return object;
+		}
+
+		String readString() {
+			final int code = (int) readUnsignedVarLong();
+			if (code == 0) {
+				return null;
+			}
+			if (code > 1) {
+				return strings.get(code - 2);
+			}
+			final int length = (int) readUnsignedVarLong();
+			final String string = new String(data, position, length, StandardCharsets.UTF_8);
+			position += length;
+			strings.add(string);
+			return string;
+		}
+
+		long readUnsignedVarLong() {
+			long value = 0;
+			int shift = 0;
+			while (true) {
+				final byte b = data[position++];
+				value |= (long) (b & 0x7f) << shift;
+				if (b >= 0) {
+					return value;
+				}
+				shift += 7;
+			}
+		}
+
+		long readVarLong() {
+			final long zigzag = readUnsignedVarLong();
+			return (zigzag >>> 1) ^ -(zigzag & 1);
+		}
+	}
+
+	/**
+	 * Information for serializing the objects of a class.
+	 */
+	static class ClassSerializer {
+		final Constructor<?> constructor;
+		final Field[] fields;
+		final FieldKind[] kinds;
+		final Class<?>[] itemClasses;
+		final Object[][] enumConstants;
+
+		ClassSerializer(final Class<?> clazz) throws NoSuchMethodException {
+			constructor = clazz.getConstructor();
+			final ArrayList<Field> fieldList = new ArrayList<>();
+			for (final Field field : clazz.getFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					fieldList.add(field);
+				}
+			}
+			fields = fieldList.toArray(new Field[fieldList.size()]);
+			Arrays.sort(fields, new Comparator<Field>() {
+				@Override
+				public int compare(final Field f1, final Field f2) {
+					return f1.getName().compareTo(f2.getName());
+				}
+			});
+			kinds = new FieldKind[fields.length];
+			itemClasses = new Class<?>[fields.length];
+			enumConstants = new Object[fields.length][];
+			for (int i = 0; i < fields.length; i++) {
+				final Class<?> type = fields[i].getType();
+				if (type == Boolean.TYPE) {
+					kinds[i] = FieldKind.BOOLEAN;
+				} else if (type == Byte.TYPE) {
+					kinds[i] = FieldKind.BYTE;
+				} else if (type == Short.TYPE) {
+					kinds[i] = FieldKind.SHORT;
+				} else if (type == Integer.TYPE) {
+					kinds[i] = FieldKind.INT;
+				} else if (type == Long.TYPE) {
+					kinds[i] = FieldKind.LONG;
+				} else if (type == Float.TYPE) {
+					kinds[i] = FieldKind.FLOAT;
+				} else if (type == Double.TYPE) {
+					kinds[i] = FieldKind.DOUBLE;
+				} else if (type == String.class) {
+					kinds[i] = FieldKind.STRING;
+				} else if (type.isEnum()) {
+					kinds[i] = FieldKind.ENUM;
+					enumConstants[i] = type.getEnumConstants();
+				} else if (type == ArrayList.class) {
+					kinds[i] = FieldKind.LIST;
+					final ParameterizedType listType = (ParameterizedType) fields[i].getGenericType();
+					itemClasses[i] = (Class<?>) listType.getActualTypeArguments()[0];
+				} else {
+					throw new IllegalArgumentException(
+							"Cannot serialize field " + fields[i].getName() + " of " + clazz.getName());
+				}
+			}
+		}
+	}
+
+	static final ConcurrentHashMap<Class<?>, ClassSerializer> serializers = new ConcurrentHashMap<>();
+
+	/**
+	 * Get the serializer of a class, which is created when the class is used
+	 * for the first time.
+	 */
+	static ClassSerializer getSerializer(final Class<?> clazz) throws NoSuchMethodException {
+		ClassSerializer serializer = serializers.get(clazz);
+		if (serializer == null) {
+			serializer = new ClassSerializer(clazz);
+			serializers.put(clazz, serializer);
+		}
+		return serializer;
+	}
+
+	/**
+	 * Classes of the messages that can be sent, indexed by class id. New
+	 * classes should be added at the end.
+	 */
+	static final Class<?>[] messageClasses = { Message_SW_BlockLane.class, Message_SW_ChangeSpeed.class,
+			Message_SW_KillWorker.class, Message_SW_ServerBased_ShareTraffic.class,
+			Message_SW_ServerBased_Simulate.class, Message_SW_Serverless_Pause.class,
+			Message_SW_Serverless_Resume.class, Message_SW_Serverless_Start.class, Message_SW_Serverless_Stop.class,
+			Message_SW_Setup.class, Message_WS_Join.class, Message_WS_ServerBased_SharedMyTrafficWithNeighbor.class,
+			Message_WS_Serverless_Complete.class, Message_WS_SetupCreatingVehicles.class,
+			Message_WS_SetupDone.class, Message_WS_TrafficReport.class, Message_WW_Traffic.class };
+	static final HashMap<Class<?>, Integer> messageClassIds = new HashMap<>();
+	/**
+	 * Serializers of message classes, indexed by class id.
+	 */
+	static final ClassSerializer[] messageSerializers = new ClassSerializer[messageClasses.length];
+
+	static {
+		for (int i = 0; i < messageClasses.length; i++) {
+			messageClassIds.put(messageClasses[i], i);
+			try {
+				messageSerializers[i] = getSerializer(messageClasses[i]);
+			} catch (final NoSuchMethodException e) {
+				throw new IllegalStateException("Message class needs a public constructor without parameters: "
+						+ messageClasses[i].getName(), e);
+			}
+		}
+	}
+
+	byte[] bytes = new byte[1024];
+	int position = 0;
+	/**
+	 * Numbers of the strings written in the current message.
+	 */
+	HashMap<String, Integer> stringIds = new HashMap<>();
+
+	@Override
+	public Object decode(final byte[] data, final int offset, final int length) {
+		try {
+			final Reader reader = new Reader(data, offset);
+			final int classId = (int) reader.readUnsignedVarLong();
+			return reader.readObject(messageSerializers[classId]);
+		} catch (final Exception e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	@Override
+	public int encode(final Object message) {
+		position = 0;
+		stringIds.clear();
+		ensureCapacity(1);
+		bytes[position++] = (byte) Type.BINARY.ordinal();
+		try {
+			final Integer classId = messageClassIds.get(message.getClass());
+			if (classId == null) {
+				throw new IllegalArgumentException("Unknown message class " + message.getClass().getName());
+			}
+			writeUnsignedVarLong(classId);
+			writeObject(message, messageSerializers[classId]);
+		} catch (final Exception e) {
+			e.printStackTrace();
+			return -1;
+		}
+		return position;
+	}
+
+	void ensureCapacity(final int numBytesToAdd) {
+		if ((position + numBytesToAdd) > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + numBytesToAdd));
+		}
+	}
+
+	@Override
+	public byte[] getEncodedBytes() {
+		return bytes;
+	}
+
+	void writeObject(final Object object, final ClassSerializer serializer) throws Exception {
+		for (int i = 0; i < serializer.fields.length; i++) {
+			final Field field = serializer.fields[i];
+			switch (serializer.kinds[i]) {
+			case BOOLEAN:
+				ensureCapacity(1);
+				bytes[position++] = (byte) (field.getBoolean(object) ? 1 : 0);
+				break;
+			case BYTE:
+				writeVarLong(field.getByte(object));
+				break;
+			case SHORT:
+				writeVarLong(field.getShort(object));
+				break;
+			case INT:
+				writeVarLong(field.getInt(object));
+				break;
+			case LONG:
+				writeVarLong(field.getLong(object));
+				break;
+			case FLOAT:
+				writeUnsignedVarLong(Integer.reverseBytes(Float.floatToRawIntBits(field.getFloat(object))) & 0xffffffffL);
+				break;
+			case DOUBLE:
+				writeUnsignedVarLong(Long.reverseBytes(Double.doubleToRawLongBits(field.getDouble(object))));
+				break;
+			case STRING:
+				writeString((String) field.get(object));
+				break;
+			case ENUM: {
+				final Enum<?> value = (Enum<?>) field.get(object);
+				writeVarLong(value == null ? -1 : value.ordinal());
+				break;
+			}
+			case LIST: {
+				final ArrayList<?> list = (ArrayList<?>) field.get(object);
+				if (list == null) {
+					writeVarLong(-1);
+					break;
+				}
+				writeVarLong(list.size());
+				final ClassSerializer itemSerializer = getSerializer(serializer.itemClasses[i]);
+				for (int j = 0; j < list.size(); j++) {
+					writeObject(list.get(j), itemSerializer);
+				}
+				break;
+			}
+			}
+		}
+	}
+
+	/**
+	 * Write a string. The first number is 0 for null, 1 for a new string,
+	 * which is followed by its length and bytes, or 2 plus the number of a
+	 * string written earlier in the message.
+	 */
+	void writeString(final String string) {
+		if (string == null) {
+			writeUnsignedVarLong(0);
+			return;
+		}
+		final Integer id = stringIds.get(string);
+		if (id != null) {
+			writeUnsignedVarLong(id + 2);
+			return;
+		}
+		stringIds.put(string, stringIds.size());
+		final byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+		writeUnsignedVarLong(1);
+		writeUnsignedVarLong(stringBytes.length);
+		ensureCapacity(stringBytes.length);
+		System.arraycopy(stringBytes, 0, bytes, position, stringBytes.length);
+		position += stringBytes.length;
+	}
+
+	void writeUnsignedVarLong(long value) {
+		ensureCapacity(10);
+		while ((value & ~0x7fL) != 0) {
+			bytes[position++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		bytes[position++] = (byte) value;
+	}
+
+	/**
+	 * Write a signed number. Numbers close to zero, including small negative
+	 * numbers, take few bytes.
+	 */
+	void writeVarLong(final long value) {
+		writeUnsignedVarLong((value << 1) ^ (value >> 63));
+	}
+}
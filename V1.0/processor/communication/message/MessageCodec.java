@@ -0,0 +1,36 @@
+package processor.communication.message;
+
+/**
+ * Converts messages to bytes and vice versa. The first byte of an encoded
+ * message identifies the codec, so a receiver can decode messages from senders
+ * that use different codecs.
+ *
+ * An instance may reuse internal buffers between calls, so each sender should
+ * use its own instance.
+ */
+public interface MessageCodec {
+	public enum Type {
+		TEXT, BINARY
+	}
+
+	/**
+	 * Convert a message to bytes. The returned array is only valid until the
+	 * next call.
+	 *
+	 * @return Number of bytes at the start of the array that hold the
+	 *         message, including the identifier of the codec, or -1 if the
+	 *         message cannot be encoded.
+	 */
+	int encode(Object message);
+
+	/**
+	 * Get the array written by the latest call of encode.
+	 */
+	byte[] getEncodedBytes();
+
+	/**
+	 * Convert bytes to a message. The bytes do not include the identifier of
+	 * the codec.
+	 */
+	Object decode(byte[] data, int offset, int length);
+}
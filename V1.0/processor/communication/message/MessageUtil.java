@@ -15,6 +15,13 @@ import common.Settings;
  */
 public class MessageUtil {
 
+	/**
+	 * Codecs for decoding. Decoding does not change the state of a codec, so
+	 * these can be shared.
+	 */
+	static final TextMessageCodec textCodec = new TextMessageCodec();
+	static final BinaryMessageCodec binaryCodec = new BinaryMessageCodec();
+
 	static String[] delimiterMsgField = { "\u0000", "\u0001", "\u0002", "\u0003", "\u0004", "\u0005", "\u0006",
 			"\u0007", "\u0008" };
 	static String[] delimiterMsgListItem = { "\u0010", "\u0011", "\u0012", "\u0013", "\u0014", "\u0015", "\u0016",
@@ -157,4 +164,28 @@ public class MessageUtil {
 
 		return sb.toString();
 	}
+
+	/**
+	 * Create a codec for converting messages to bytes.
+	 */
+	public static MessageCodec createCodec(final MessageCodec.Type type) {
+		switch (type) {
+		case TEXT:
+			return new TextMessageCodec();
+		default:
+			return new BinaryMessageCodec();
+		}
+	}
+
+	/**
+	 * Convert the bytes of a message to the message. The first byte identifies
+	 * the codec that encoded the message.
+	 */
+	public static Object decode(final byte[] data, final int offset, final int length) {
+		if (data[offset] == MessageCodec.Type.TEXT.ordinal()) {
+			return textCodec.decode(data, offset + 1, length - 1);
+		} else {
+			return binaryCodec.decode(data, offset + 1, length - 1);
+		}
+	}
 }
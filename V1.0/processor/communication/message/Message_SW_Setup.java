@@ -54,6 +54,17 @@ public class Message_SW_Setup {
 	public boolean isAllowTramRule;
 	public boolean isDriveOnLeft;
 	public boolean isUseAnyLaneToTurn;
+	public int numThreadsPerWorker;
+	public long randomSeed;
+	public int numLandmarksInAltAStar;
+	public double stretchInAltAStar;
+	public int routeCacheSize;
+	public int maxNumReRoutesPerStep;
+	public double edgeSpeedSmoothingFactor;
+	public int numStepsPerTravelTimeSnapshot;
+	public int numStepsToKeepShortestPathTree;
+	public String messageCodec;
+	public int numTrafficReportsPerKeyframe;
 	
 	public Message_SW_Setup() {
 
@@ -80,7 +91,7 @@ public class Message_SW_Setup {
 		numRandomPrivateVehicles = workerToReceiveMessage.numRandomPrivateVehicles;
 		numRandomTrams = workerToReceiveMessage.numRandomTrams;
 		numRandomBuses = workerToReceiveMessage.numRandomBuses;
-		externalRoutes = workerToReceiveMessage.externalRoutes;
+		externalRoutes = new ArrayList<>(workerToReceiveMessage.externalRoutes);
 		isServerBased = Settings.isServerBased;
 		if (Settings.isNewEnvironment) {
 			if (Settings.isBuiltinRoadGraph) {
@@ -106,6 +117,17 @@ public class Message_SW_Setup {
 		isAllowTramRule = Settings.isAllowTramRule;
 		isDriveOnLeft = Settings.isDriveOnLeft;
 		isUseAnyLaneToTurn=Settings.isUseAnyLaneToTurn;
+		numThreadsPerWorker = Settings.numThreadsPerWorker;
+		randomSeed = Settings.randomSeed;
+		numLandmarksInAltAStar = Settings.numLandmarksInAltAStar;
+		stretchInAltAStar = Settings.stretchInAltAStar;
+		routeCacheSize = Settings.routeCacheSize;
+		maxNumReRoutesPerStep = Settings.maxNumReRoutesPerStep;
+		edgeSpeedSmoothingFactor = Settings.edgeSpeedSmoothingFactor;
+		numStepsPerTravelTimeSnapshot = Settings.numStepsPerTravelTimeSnapshot;
+		numStepsToKeepShortestPathTree = Settings.numStepsToKeepShortestPathTree;
+		messageCodec = Settings.messageCodec.name();
+		numTrafficReportsPerKeyframe = Settings.numTrafficReportsPerKeyframe;
 	}
 
 	ArrayList<SerializableWorkerMetadata> appendMetadataOfWorkers(
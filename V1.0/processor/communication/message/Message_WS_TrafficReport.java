@@ -5,24 +5,33 @@ import java.util.ArrayList;
 import common.Settings;
 import processor.server.DataOutputScope;
 import traffic.light.LightCoordinator;
-import traffic.light.LightCoordinator.LightGroup;
-import traffic.light.TrafficLightTiming;
-import traffic.road.Edge;
+import traffic.routing.RouteCache;
 import traffic.routing.RouteLeg;
 import traffic.vehicle.Vehicle;
+import traffic.vehicle.VehicleStateStore;
 import traffic.vehicle.VehicleType;
-import traffic.vehicle.VehicleUtil;
 
 /**
  * Worker-to-server message that is sent by worker after simulating one step.
  * This message is only used if synchronization involves server. Information
  * contained in this message can be used for updating GUI.
  *
+ * Vehicles and traffic lights are encoded by {@link TrafficReportEncoder} and
+ * only the changes since the previous report are sent between keyframes. The
+ * lists of vehicles and lights are empty when the message is sent. They are
+ * filled by {@link TrafficReportDecoder} at the receiver.
+ *
  */
 public class Message_WS_TrafficReport {
 	public String workerName;
 	public ArrayList<Serializable_GUI_Vehicle> vehicles = new ArrayList<>();
 	public ArrayList<Serializable_GUI_Light> trafficLights = new ArrayList<>();
+	public boolean isKeyframe;
+	public boolean isExact;
+	public ArrayList<Serializable_GUI_VehicleIdentity> newVehicles = new ArrayList<>();
+	public ArrayList<Serializable_GUI_VehiclePosition> vehiclePositions = new ArrayList<>();
+	public ArrayList<SerializableInt> removedVehicleHandles = new ArrayList<>();
+	public ArrayList<Serializable_GUI_LightChange> lightChanges = new ArrayList<>();
 	public ArrayList<SerializableRoute> newRoutesSinceLastReport = new ArrayList<>();
 	public ArrayList<SerializableTravelTime> travelTimes = new ArrayList<>();
 	public int step;
@@ -31,20 +40,20 @@ public class Message_WS_TrafficReport {
 	public int numInternalBuses;
 	public int totalNumVehicles;
 	public double aggregatedTravelSpeedValues;
+	public long numRouteCacheHits;
+	public long numRouteCacheMisses;
 
 	public Message_WS_TrafficReport() {
 
 	}
 
 	public Message_WS_TrafficReport(final String workerName, final ArrayList<Vehicle> vehiclesOnRoad,
-			final LightCoordinator lightCoordinator, final ArrayList<Vehicle> newVehiclesSinceLastReport,
+			final VehicleStateStore vehicleStates, final LightCoordinator lightCoordinator, final ArrayList<Vehicle> newVehiclesSinceLastReport,
 			final int step, final int numInternalNonPubVehicles, final int numInternalTrams,
-			final int numInternalBuses) {
+			final int numInternalBuses, final RouteCache routeCache, final TrafficReportEncoder encoder) {
 		this.workerName = workerName;
-		vehicles = getDetailOfActiveVehiclesOnRoad(Settings.isVisualize, vehiclesOnRoad,
-				Settings.outputTrajectoryScope);
-		aggregatedTravelSpeedValues = getAggregatedTravelSpeedValues(vehiclesOnRoad);
-		trafficLights = getDetailOfLights(lightCoordinator);
+		encoder.encode(this, vehiclesOnRoad, vehicleStates, lightCoordinator);
+		aggregatedTravelSpeedValues = getAggregatedTravelSpeedValues(vehicleStates, vehiclesOnRoad.size());
 		newRoutesSinceLastReport = getInitialRouteList(newVehiclesSinceLastReport, Settings.outputRouteScope);
 		travelTimes = getTravelTimes(vehiclesOnRoad, Settings.outputTravelTimeScope);
 
@@ -53,13 +62,18 @@ public class Message_WS_TrafficReport {
 		this.numInternalTrams = numInternalTrams;
 		this.numInternalBuses = numInternalBuses;
 		this.totalNumVehicles = vehiclesOnRoad.size();
+		if (routeCache != null) {
+			numRouteCacheHits = routeCache.takeNumHits();
+			numRouteCacheMisses = routeCache.takeNumMisses();
+		}
 	}
 
-	double getAggregatedTravelSpeedValues(final ArrayList<Vehicle> vehicles) {
+	double getAggregatedTravelSpeedValues(final VehicleStateStore vehicleStates, final int numVehicles) {
 		double aggregated = 0;
 		if (Settings.isOutputSimulationLog) {
-			for (Vehicle vehicle : vehicles) {
-				aggregated += vehicle.speed;
+			final double[] speeds = vehicleStates.speed;
+			for (int i = 0; i < numVehicles; i++) {
+				aggregated += speeds[i];
 			}
 		}
 		return aggregated;
@@ -78,60 +92,6 @@ public class Message_WS_TrafficReport {
 		return list;
 	}
 
-	ArrayList<Serializable_GUI_Vehicle> getDetailOfActiveVehiclesOnRoad(boolean isVisualize,
-			final ArrayList<Vehicle> vehicles, DataOutputScope outputTrajectoryScope) {
-		final ArrayList<Serializable_GUI_Vehicle> list = new ArrayList<>();
-		if (isVisualize || outputTrajectoryScope != DataOutputScope.NONE) {
-			for (final Vehicle v : vehicles) {
-				if (Settings.isVisualize || outputTrajectoryScope == DataOutputScope.ALL
-						|| (v.isForeground && outputTrajectoryScope == DataOutputScope.FOREGROUND)
-						|| (!v.isForeground && outputTrajectoryScope == DataOutputScope.BACKGROUND)) {
-					if (v.active && (v.lane != null)) {
-						final Serializable_GUI_Vehicle sVehicle = new Serializable_GUI_Vehicle();
-						sVehicle.type = v.type.name();						
-						sVehicle.speed = v.speed;
-						final double[] coordinates = VehicleUtil.calculateCoordinates(v);
-						sVehicle.lonHead = coordinates[0];
-						sVehicle.latHead = coordinates[1];
-						sVehicle.lonTail = coordinates[2];
-						sVehicle.latTail = coordinates[3];
-						sVehicle.numLinksToGo = v.routeLegs.size() - 1 - v.indexLegOnRoute;
-						sVehicle.id = v.id;
-						sVehicle.worker = workerName;
-						sVehicle.driverProfile = v.driverProfile.name();
-						sVehicle.edgeIndex = v.lane.edge.index;
-						sVehicle.originalEdgeMaxSpeed = v.lane.edge.freeFlowSpeed;
-						sVehicle.isAffectedByPriorityVehicle = v.isAffectedByPriorityVehicle;
-						sVehicle.isForeground = v.isForeground;
-						list.add(sVehicle);
-					}
-				}
-			}
-		}
-
-		return list;
-	}
-
-	ArrayList<Serializable_GUI_Light> getDetailOfLights(final LightCoordinator lightCoordinator) {
-		final ArrayList<Serializable_GUI_Light> list = new ArrayList<>();
-		if (Settings.isVisualize && Settings.trafficLightTiming != TrafficLightTiming.NONE) {
-			for (final LightGroup edgeGroups : lightCoordinator.lightGroups) {
-				for (final ArrayList<Edge> edgeGroup : edgeGroups.edgeGroups) {
-					for (final Edge e : edgeGroup) {
-						final double lightPositionToEdgeRatio = (e.length - 1) / e.length;
-						final double latitude = (e.startNode.lat
-								+ ((e.endNode.lat - e.startNode.lat) * lightPositionToEdgeRatio));
-						final double longitude = (e.startNode.lon
-								+ ((e.endNode.lon - e.startNode.lon) * lightPositionToEdgeRatio));
-						list.add(new Serializable_GUI_Light(longitude, latitude, e.lightColor.color));
-					}
-				}
-			}
-		}
-
-		return list;
-	}
-
 	ArrayList<SerializableRoute> getInitialRouteList(final ArrayList<Vehicle> vehicles,
 			DataOutputScope outputRouteScope) {
 		final ArrayList<SerializableRoute> list = new ArrayList<>();
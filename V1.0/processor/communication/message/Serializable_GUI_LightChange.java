@@ -0,0 +1,18 @@
+package processor.communication.message;
+
+/**
+ * New color of the traffic light at the end of an edge.
+ */
+public class Serializable_GUI_LightChange {
+	public int edgeIndex;
+	public String color;
+
+	public Serializable_GUI_LightChange() {
+
+	}
+
+	public Serializable_GUI_LightChange(final int edgeIndex, final String color) {
+		this.edgeIndex = edgeIndex;
+		this.color = color;
+	}
+}
@@ -0,0 +1,26 @@
+package processor.communication.message;
+
+/**
+ * Information of a vehicle that does not change while the vehicle is on road.
+ * It is sent in a traffic report when the vehicle gets a new handle.
+ */
+public class Serializable_GUI_VehicleIdentity {
+	public int handle;
+	public String id;
+	public String type;
+	public String driverProfile;
+	public boolean isForeground;
+
+	public Serializable_GUI_VehicleIdentity() {
+
+	}
+
+	public Serializable_GUI_VehicleIdentity(final int handle, final String id, final String type,
+			final String driverProfile, final boolean isForeground) {
+		this.handle = handle;
+		this.id = id;
+		this.type = type;
+		this.driverProfile = driverProfile;
+		this.isForeground = isForeground;
+	}
+}
@@ -0,0 +1,34 @@
+package processor.communication.message;
+
+/**
+ * State of a vehicle in a traffic report. The position is given by the lane
+ * and the offset of the vehicle's head from the start of the lane. The offset
+ * and the speed are quantized, unless the report is exact.
+ */
+public class Serializable_GUI_VehiclePosition {
+	public int handle;
+	public int laneIndex;
+	public int quantizedHeadPosition;
+	public int quantizedSpeed;
+	public double headPosition;// Only used in exact reports
+	public double speed;// Only used in exact reports
+	public int numLinksToGo;
+	public boolean isAffectedByPriorityVehicle;
+
+	public Serializable_GUI_VehiclePosition() {
+
+	}
+
+	public Serializable_GUI_VehiclePosition(final int handle, final int laneIndex, final int quantizedHeadPosition,
+			final int quantizedSpeed, final double headPosition, final double speed, final int numLinksToGo,
+			final boolean isAffectedByPriorityVehicle) {
+		this.handle = handle;
+		this.laneIndex = laneIndex;
+		this.quantizedHeadPosition = quantizedHeadPosition;
+		this.quantizedSpeed = quantizedSpeed;
+		this.headPosition = headPosition;
+		this.speed = speed;
+		this.numLinksToGo = numLinksToGo;
+		this.isAffectedByPriorityVehicle = isAffectedByPriorityVehicle;
+	}
+}
@@ -0,0 +1,33 @@
+package processor.communication.message;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec based on the text format of MessageUtil.
+ *
+ */
+public class TextMessageCodec implements MessageCodec {
+	MessageUtil messageUtil = new MessageUtil();
+	byte[] bytes = new byte[0];
+
+	@Override
+	public Object decode(final byte[] data, final int offset, final int length) {
+		return MessageUtil.read(new String(data, offset, length, StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public int encode(final Object message) {
+		final byte[] text = messageUtil.compose(message).getBytes(StandardCharsets.UTF_8);
+		if (bytes.length < (text.length + 1)) {
+			bytes = new byte[text.length + 1];
+		}
+		bytes[0] = (byte) Type.TEXT.ordinal();
+		System.arraycopy(text, 0, bytes, 1, text.length);
+		return text.length + 1;
+	}
+
+	@Override
+	public byte[] getEncodedBytes() {
+		return bytes;
+	}
+}
@@ -0,0 +1,148 @@
+package processor.communication.message;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+import traffic.road.Edge;
+import traffic.road.Lane;
+import traffic.road.RoadNetwork;
+import traffic.vehicle.VehicleType;
+import traffic.vehicle.VehicleUtil;
+
+/**
+ * Rebuilds the vehicles and traffic lights of a worker from the traffic reports
+ * encoded by {@link TrafficReportEncoder}. Reports from a worker must be decoded
+ * in the order in which they are sent. After decoding, the vehicle list and
+ * light list of a report contain all the reported vehicles and lights of the
+ * worker, as if the report was not encoded.
+ *
+ */
+public class TrafficReportDecoder {
+	// Information received for each handle
+	boolean[] isHandleUsed = new boolean[0];
+	String[] ids = new String[0];
+	VehicleType[] types = new VehicleType[0];
+	String[] driverProfiles = new String[0];
+	boolean[] isForeground = new boolean[0];
+	int[] laneIndexes = new int[0];
+	double[] headPositions = new double[0];
+	double[] speeds = new double[0];
+	int[] numLinksToGo = new int[0];
+	boolean[] isAffectedByPriorityVehicle = new boolean[0];
+	int numHandles = 0;
+	/**
+	 * Lights keyed by the index of their edges.
+	 */
+	LinkedHashMap<Integer, Serializable_GUI_Light> lights = new LinkedHashMap<>();
+	/**
+	 * Whether a keyframe has been received.
+	 */
+	boolean isStarted = false;
+
+	Serializable_GUI_Light createLight(final Edge e, final String color) {
+		final double lightPositionToEdgeRatio = (e.length - 1) / e.length;
+		final double latitude = (e.startNode.lat + ((e.endNode.lat - e.startNode.lat) * lightPositionToEdgeRatio));
+		final double longitude = (e.startNode.lon + ((e.endNode.lon - e.startNode.lon) * lightPositionToEdgeRatio));
+		return new Serializable_GUI_Light(longitude, latitude, color);
+	}
+
+	Serializable_GUI_Vehicle createVehicle(final int handle, final String workerName, final RoadNetwork roadNetwork) {
+		final Lane lane = roadNetwork.lanes.get(laneIndexes[handle]);
+		final double[] coordinates = VehicleUtil.calculateCoordinates(lane, headPositions[handle],
+				types[handle].length);
+		final Serializable_GUI_Vehicle sVehicle = new Serializable_GUI_Vehicle();
+		sVehicle.type = types[handle].name();
+		sVehicle.speed = speeds[handle];
+		sVehicle.lonHead = coordinates[0];
+		sVehicle.latHead = coordinates[1];
+		sVehicle.lonTail = coordinates[2];
+		sVehicle.latTail = coordinates[3];
+		sVehicle.numLinksToGo = numLinksToGo[handle];
+		sVehicle.id = ids[handle];
+		sVehicle.worker = workerName;
+		sVehicle.driverProfile = driverProfiles[handle];
+		sVehicle.edgeIndex = lane.edge.index;
+		sVehicle.originalEdgeMaxSpeed = lane.edge.freeFlowSpeed;
+		sVehicle.isAffectedByPriorityVehicle = isAffectedByPriorityVehicle[handle];
+		sVehicle.isForeground = isForeground[handle];
+		return sVehicle;
+	}
+
+	/**
+	 * Apply the changes in a report and fill the vehicle list and the light
+	 * list of the report.
+	 *
+	 * @param roadNetwork
+	 *            Road network with the same lanes and edges as the network of
+	 *            the worker.
+	 */
+	public void decode(final Message_WS_TrafficReport report, final RoadNetwork roadNetwork) {
+		if (report.isKeyframe) {
+			Arrays.fill(isHandleUsed, false);
+			numHandles = 0;
+			lights.clear();
+			isStarted = true;
+		} else if (!isStarted) {
+			// Changes cannot be applied without a keyframe
+			return;
+		}
+
+		for (final SerializableInt removed : report.removedVehicleHandles) {
+			isHandleUsed[removed.value] = false;
+		}
+		for (final Serializable_GUI_VehicleIdentity identity : report.newVehicles) {
+			final int handle = identity.handle;
+			if (handle >= isHandleUsed.length) {
+				resizeHandleArrays(Math.max(handle + 1, isHandleUsed.length * 2));
+			}
+			if (handle >= numHandles) {
+				numHandles = handle + 1;
+			}
+			isHandleUsed[handle] = true;
+			ids[handle] = identity.id;
+			types[handle] = VehicleType.getVehicleTypeFromName(identity.type);
+			driverProfiles[handle] = identity.driverProfile;
+			isForeground[handle] = identity.isForeground;
+		}
+		for (final Serializable_GUI_VehiclePosition position : report.vehiclePositions) {
+			final int handle = position.handle;
+			laneIndexes[handle] = position.laneIndex;
+			if (report.isExact) {
+				headPositions[handle] = position.headPosition;
+				speeds[handle] = position.speed;
+			} else {
+				headPositions[handle] = position.quantizedHeadPosition * TrafficReportEncoder.positionResolution;
+				speeds[handle] = position.quantizedSpeed * TrafficReportEncoder.speedResolution;
+			}
+			numLinksToGo[handle] = position.numLinksToGo;
+			isAffectedByPriorityVehicle[handle] = position.isAffectedByPriorityVehicle;
+		}
+		for (final Serializable_GUI_LightChange change : report.lightChanges) {
+			lights.put(change.edgeIndex, createLight(roadNetwork.edges.get(change.edgeIndex), change.color));
+		}
+
+		// New lists are created as the GUI may still be drawing the previous lists
+		final ArrayList<Serializable_GUI_Vehicle> vehicles = new ArrayList<>();
+		for (int handle = 0; handle < numHandles; handle++) {
+			if (isHandleUsed[handle]) {
+				vehicles.add(createVehicle(handle, report.workerName, roadNetwork));
+			}
+		}
+		report.vehicles = vehicles;
+		report.trafficLights = new ArrayList<>(lights.values());
+	}
+
+	void resizeHandleArrays(final int length) {
+		isHandleUsed = Arrays.copyOf(isHandleUsed, length);
+		ids = Arrays.copyOf(ids, length);
+		types = Arrays.copyOf(types, length);
+		driverProfiles = Arrays.copyOf(driverProfiles, length);
+		isForeground = Arrays.copyOf(isForeground, length);
+		laneIndexes = Arrays.copyOf(laneIndexes, length);
+		headPositions = Arrays.copyOf(headPositions, length);
+		speeds = Arrays.copyOf(speeds, length);
+		numLinksToGo = Arrays.copyOf(numLinksToGo, length);
+		isAffectedByPriorityVehicle = Arrays.copyOf(isAffectedByPriorityVehicle, length);
+	}
+}
@@ -0,0 +1,231 @@
+package processor.communication.message;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import common.Settings;
+import processor.server.DataOutputScope;
+import traffic.light.LightColor;
+import traffic.light.LightCoordinator;
+import traffic.light.LightCoordinator.LightGroup;
+import traffic.light.TrafficLightTiming;
+import traffic.road.Edge;
+import traffic.vehicle.Vehicle;
+import traffic.vehicle.VehicleStateStore;
+
+/**
+ * Encodes the vehicles and traffic lights in the traffic reports of a worker.
+ * A keyframe contains all the reported vehicles and lights. The reports
+ * between two keyframes only contain the changes since the previous report:
+ * vehicles whose quantized state changed, vehicles that are not reported any
+ * more, and lights whose color changed.
+ *
+ * A vehicle is identified by a numeric handle, which is assigned when the
+ * vehicle first appears in a report and kept until the vehicle is not reported
+ * any more. The id, type and other fixed information of a vehicle is only sent
+ * when the vehicle gets a handle and in keyframes. Handles of vehicles that are
+ * not reported any more are reused from the next report.
+ *
+ * Positions are sent as the index of the lane and the head position of the
+ * vehicle in the lane. The head positions and speeds are quantized for
+ * visualization, see {@link #positionResolution} and {@link #speedResolution}.
+ * They are sent exactly when trajectories are output, so the trajectories are
+ * not changed by the encoding.
+ *
+ */
+public class TrafficReportEncoder {
+	/**
+	 * In meters.
+	 */
+	public static final double positionResolution = 0.1;
+	/**
+	 * In meters per second.
+	 */
+	public static final double speedResolution = 0.01;
+
+	// Information sent for each handle
+	Vehicle[] vehicleOfHandle = new Vehicle[0];
+	int[] sentLaneIndexes = new int[0];
+	/**
+	 * Head positions and speeds as sent, which are the numbers of resolution
+	 * units if the values are quantized.
+	 */
+	double[] sentHeadPositions = new double[0];
+	double[] sentSpeeds = new double[0];
+	int[] sentNumLinksToGo = new int[0];
+	boolean[] sentIsAffectedByPriorityVehicle = new boolean[0];
+	/**
+	 * Latest report that includes the vehicle with each handle.
+	 */
+	int[] reportOfHandle = new int[0];
+	int numHandles = 0;
+	/**
+	 * Handles that can be given to new vehicles.
+	 */
+	int[] freeHandles = new int[0];
+	int numFreeHandles = 0;
+	LightColor[] sentLightColors = new LightColor[0];
+	int numReports = 0;
+	int numReportsSinceKeyframe = 0;
+
+	/**
+	 * Add vehicles and lights to a traffic report.
+	 */
+	public void encode(final Message_WS_TrafficReport report, final ArrayList<Vehicle> vehiclesOnRoad,
+			final VehicleStateStore vehicleStates, final LightCoordinator lightCoordinator) {
+		numReports++;
+		report.isKeyframe = (numReportsSinceKeyframe == 0)
+				|| ((Settings.numTrafficReportsPerKeyframe > 0)
+						&& (numReportsSinceKeyframe >= Settings.numTrafficReportsPerKeyframe));
+		if (report.isKeyframe) {
+			Arrays.fill(sentLightColors, null);
+			numReportsSinceKeyframe = 0;
+		}
+		numReportsSinceKeyframe++;
+		report.isExact = Settings.outputTrajectoryScope != DataOutputScope.NONE;
+
+		encodeVehicles(report, vehiclesOnRoad, vehicleStates, Settings.isVisualize, Settings.outputTrajectoryScope);
+		if (Settings.isVisualize && (Settings.trafficLightTiming != TrafficLightTiming.NONE)) {
+			encodeLights(report, lightCoordinator);
+		}
+	}
+
+	void encodeLights(final Message_WS_TrafficReport report, final LightCoordinator lightCoordinator) {
+		for (final LightGroup edgeGroups : lightCoordinator.lightGroups) {
+			for (final ArrayList<Edge> edgeGroup : edgeGroups.edgeGroups) {
+				for (final Edge e : edgeGroup) {
+					if (e.index >= sentLightColors.length) {
+						sentLightColors = Arrays.copyOf(sentLightColors,
+								Math.max(e.index + 1, sentLightColors.length * 2));
+					}
+					if (sentLightColors[e.index] != e.lightColor) {
+						sentLightColors[e.index] = e.lightColor;
+						report.lightChanges.add(new Serializable_GUI_LightChange(e.index, e.lightColor.color));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add the vehicles on road to a report. The vehicle at index i of the list
+	 * has its state at slot i of the vehicle state store.
+	 */
+	void encodeVehicles(final Message_WS_TrafficReport report, final ArrayList<Vehicle> vehicles,
+			final VehicleStateStore vehicleStates, final boolean isVisualize,
+			final DataOutputScope outputTrajectoryScope) {
+		if (isVisualize || outputTrajectoryScope != DataOutputScope.NONE) {
+			for (int i = 0; i < vehicles.size(); i++) {
+				final Vehicle v = vehicles.get(i);
+				if (isVisualize || outputTrajectoryScope == DataOutputScope.ALL
+						|| (v.isForeground && outputTrajectoryScope == DataOutputScope.FOREGROUND)
+						|| (!v.isForeground && outputTrajectoryScope == DataOutputScope.BACKGROUND)) {
+					if (v.active && (vehicleStates.laneIndex[i] >= 0)) {
+						encodeVehicle(report, v, vehicleStates, i);
+					}
+				}
+			}
+		}
+
+		// Release the handles of vehicles that were reported before but not in this report
+		for (int handle = 0; handle < numHandles; handle++) {
+			if ((vehicleOfHandle[handle] != null) && (reportOfHandle[handle] != numReports)) {
+				vehicleOfHandle[handle].reportHandle = -1;
+				vehicleOfHandle[handle] = null;
+				freeHandles[numFreeHandles++] = handle;
+				// Receiver forgets all the handles at keyframe
+				if (!report.isKeyframe) {
+					report.removedVehicleHandles.add(new SerializableInt(handle));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the handle of a vehicle. A new handle is given to the vehicle if it
+	 * does not have one.
+	 *
+	 * @return Handle of the vehicle if the vehicle already has one, or -1
+	 *         minus the new handle.
+	 */
+	int getHandle(final Vehicle v) {
+		final int handle = v.reportHandle;
+		if ((handle >= 0) && (handle < numHandles) && (vehicleOfHandle[handle] == v)) {
+			return handle;
+		}
+		final int newHandle;
+		if (numFreeHandles > 0) {
+			newHandle = freeHandles[--numFreeHandles];
+		} else {
+			newHandle = numHandles;
+			if (newHandle >= vehicleOfHandle.length) {
+				resizeHandleArrays(Math.max(newHandle + 1, vehicleOfHandle.length * 2));
+			}
+			numHandles++;
+		}
+		vehicleOfHandle[newHandle] = v;
+		v.reportHandle = newHandle;
+		return -1 - newHandle;
+	}
+
+	void encodeVehicle(final Message_WS_TrafficReport report, final Vehicle v,
+			final VehicleStateStore vehicleStates, final int slot) {
+		int handle = getHandle(v);
+		final boolean isNewHandle = handle < 0;
+		if (isNewHandle) {
+			handle = -1 - handle;
+		}
+		reportOfHandle[handle] = numReports;
+
+		final int laneIndex = vehicleStates.laneIndex[slot];
+		final double headPosition = report.isExact ? vehicleStates.headPosition[slot]
+				: Math.round(vehicleStates.headPosition[slot] / positionResolution);
+		final double speed = report.isExact ? vehicleStates.speed[slot]
+				: Math.round(vehicleStates.speed[slot] / speedResolution);
+		final int numLinksToGo = v.routeLegs.size() - 1 - vehicleStates.indexLegOnRoute[slot];
+		if (isNewHandle || report.isKeyframe) {
+			report.newVehicles.add(new Serializable_GUI_VehicleIdentity(handle, v.id, v.type.name(),
+					v.driverProfile.name(), v.isForeground));
+		} else if ((sentLaneIndexes[handle] == laneIndex) && (sentHeadPositions[handle] == headPosition)
+				&& (sentSpeeds[handle] == speed) && (sentNumLinksToGo[handle] == numLinksToGo)
+				&& (sentIsAffectedByPriorityVehicle[handle] == v.isAffectedByPriorityVehicle)) {
+			// No change
+			return;
+		}
+		sentLaneIndexes[handle] = laneIndex;
+		sentHeadPositions[handle] = headPosition;
+		sentSpeeds[handle] = speed;
+		sentNumLinksToGo[handle] = numLinksToGo;
+		sentIsAffectedByPriorityVehicle[handle] = v.isAffectedByPriorityVehicle;
+		if (report.isExact) {
+			report.vehiclePositions.add(new Serializable_GUI_VehiclePosition(handle, laneIndex, 0, 0, headPosition,
+					speed, numLinksToGo, v.isAffectedByPriorityVehicle));
+		} else {
+			report.vehiclePositions.add(new Serializable_GUI_VehiclePosition(handle, laneIndex, (int) headPosition,
+					(int) speed, 0, 0, numLinksToGo, v.isAffectedByPriorityVehicle));
+		}
+	}
+
+	/**
+	 * Start over, so the next report is a keyframe. This is needed when the
+	 * traffic is reset.
+	 */
+	public void reset() {
+		Arrays.fill(vehicleOfHandle, null);
+		Arrays.fill(sentLightColors, null);
+		numHandles = 0;
+		numFreeHandles = 0;
+		numReportsSinceKeyframe = 0;
+	}
+
+	void resizeHandleArrays(final int length) {
+		vehicleOfHandle = Arrays.copyOf(vehicleOfHandle, length);
+		freeHandles = Arrays.copyOf(freeHandles, length);
+		sentLaneIndexes = Arrays.copyOf(sentLaneIndexes, length);
+		sentHeadPositions = Arrays.copyOf(sentHeadPositions, length);
+		sentSpeeds = Arrays.copyOf(sentSpeeds, length);
+		sentNumLinksToGo = Arrays.copyOf(sentNumLinksToGo, length);
+		sentIsAffectedByPriorityVehicle = Arrays.copyOf(sentIsAffectedByPriorityVehicle, length);
+		reportOfHandle = Arrays.copyOf(reportOfHandle, length);
+	}
+}
@@ -15,5 +15,11 @@
  * Serializable data types can be nested. Note that the max number of levels in
  * the hierarchy should be less than the number of delimiter types. See
  * "appendFieldDelimiter" in "MessageUtil".
+ *
+ * Messages are converted to bytes by a codec. "TextMessageCodec" uses the
+ * delimiter format of "MessageUtil". "BinaryMessageCodec" writes the fields in
+ * a compact binary format and is used by default. The first byte of an encoded
+ * message identifies its codec, so a receiver can read messages in either
+ * format.
  */
 package processor.communication.message;
\ No newline at end of file
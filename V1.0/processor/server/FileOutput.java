@@ -105,7 +105,7 @@ public class FileOutput {
 			// Print column titles
 			fosLog = new FileOutputStream(file, true);
 			outputStringToFile(fosLog,
-					"Time Stamp, Real Time (s), Simulation Time (s), # of Worker-Worker Connections, Average Travel Speed (km/h)"
+					"Time Stamp, Real Time (s), Simulation Time (s), # of Worker-Worker Connections, Average Travel Speed (km/h), Route Cache Hits, Route Cache Misses"
 							+ System.getProperty("line.separator"));
 		} catch (final Exception e) {
 			e.printStackTrace();
@@ -211,7 +211,8 @@ public class FileOutput {
 	}
 
 	void outputSimLog(final int stepCurrent, final double simulationTimeCounter, final int totalNumFellowsOfWorker,
-			final double vehicleCount, final double aggregatedSpeedValue) {
+			final double vehicleCount, final double aggregatedSpeedValue, final long numRouteCacheHits,
+			final long numRouteCacheMisses) {
 		final Date date = new Date();
 
 		if (fosLog != null) {
@@ -224,6 +225,10 @@ public class FileOutput {
 			outputStringToFile(fosLog, String.valueOf(totalNumFellowsOfWorker));
 			outputStringToFile(fosLog, ",");
 			outputStringToFile(fosLog, String.valueOf(aggregatedSpeedValue / vehicleCount * 3.6));
+			outputStringToFile(fosLog, ",");
+			outputStringToFile(fosLog, String.valueOf(numRouteCacheHits));
+			outputStringToFile(fosLog, ",");
+			outputStringToFile(fosLog, String.valueOf(numRouteCacheMisses));
 			outputStringToFile(fosLog, System.getProperty("line.separator"));
 		}
 	}
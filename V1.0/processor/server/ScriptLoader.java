@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 
 import common.Settings;
+import processor.communication.message.MessageCodec;
 import traffic.light.TrafficLightTiming;
 import traffic.routing.Routing;
 
@@ -190,6 +191,54 @@ public class ScriptLoader {
 				Settings.isAllowReroute = Boolean.parseBoolean(fields[1]);
 				break;
 			}
+			case "numThreadsPerWorker": {
+				Settings.numThreadsPerWorker = Integer.parseInt(fields[1]);
+				break;
+			}
+			case "randomSeed": {
+				Settings.randomSeed = Long.parseLong(fields[1]);
+				break;
+			}
+			case "numLandmarksInAltAStar": {
+				Settings.numLandmarksInAltAStar = Integer.parseInt(fields[1]);
+				break;
+			}
+			case "stretchInAltAStar": {
+				Settings.stretchInAltAStar = Double.parseDouble(fields[1]);
+				break;
+			}
+			case "routeCacheSize": {
+				Settings.routeCacheSize = Integer.parseInt(fields[1]);
+				break;
+			}
+			case "maxNumReRoutesPerStep": {
+				Settings.maxNumReRoutesPerStep = Integer.parseInt(fields[1]);
+				break;
+			}
+			case "edgeSpeedSmoothingFactor": {
+				Settings.edgeSpeedSmoothingFactor = Double.parseDouble(fields[1]);
+				break;
+			}
+			case "numStepsPerTravelTimeSnapshot": {
+				Settings.numStepsPerTravelTimeSnapshot = Integer.parseInt(fields[1]);
+				break;
+			}
+			case "numStepsToKeepShortestPathTree": {
+				Settings.numStepsToKeepShortestPathTree = Integer.parseInt(fields[1]);
+				break;
+			}
+			case "messageCodec": {
+				try {
+					Settings.messageCodec = MessageCodec.Type.valueOf(fields[1]);
+				} catch (Exception e) {
+					System.out.println("Message codec value is invalid.");
+				}
+				break;
+			}
+			case "numTrafficReportsPerKeyframe": {
+				Settings.numTrafficReportsPerKeyframe = Integer.parseInt(fields[1]);
+				break;
+			}
 			case "turnFromAnyLane":{
 				Settings.isUseAnyLaneToTurn=Boolean.parseBoolean(fields[1]);
 				break;
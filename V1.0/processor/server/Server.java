@@ -72,6 +72,8 @@ public class Server implements MessageHandler, Runnable {
 	int numVehiclesNeededAtStart = 0;// For updating setup progress on GUI
 	double aggregatedVehicleCountInOneSimulation = 0.0;
 	double aggregatedVehicleTravelSpeedInOneSimulation = 0.0;
+	long numRouteCacheHitsInOneSimulation = 0;
+	long numRouteCacheMissesInOneSimulation = 0;
 	Server server;
 	Scanner sc = new Scanner(System.in);
 	boolean isOpenForNewWorkers = true;
@@ -346,13 +348,16 @@ public class Server implements MessageHandler, Runnable {
 			}
 
 		} else if (message instanceof Message_WS_TrafficReport) {
+			final Message_WS_TrafficReport received = (Message_WS_TrafficReport) message;
+
+			// Decode every report, as later reports only contain changes
+			decodeTrafficReport(received);
+
 			if (!isSimulating) {
 				// No need to process the message if simulation was stopped
 				return;
 			}
 
-			final Message_WS_TrafficReport received = (Message_WS_TrafficReport) message;
-
 			// Cache received reports
 			receivedTrafficReportCache.add(received);
 
@@ -428,6 +433,9 @@ public class Server implements MessageHandler, Runnable {
 			// Aggregate vehicle count and travel speed
 			aggregatedVehicleCountInOneSimulation += message.totalNumVehicles;
 			aggregatedVehicleTravelSpeedInOneSimulation += message.aggregatedTravelSpeedValues;
+			// Aggregate statistics of route caches
+			numRouteCacheHitsInOneSimulation += message.numRouteCacheHits;
+			numRouteCacheMissesInOneSimulation += message.numRouteCacheMisses;
 			// Store routes of new vehicles created since last report
 			routesForOutput.addAll(message.newRoutesSinceLastReport);
 			// Update for travel time output
@@ -562,6 +570,8 @@ public class Server implements MessageHandler, Runnable {
 		receivedTrafficReportCache.clear();
 		aggregatedVehicleCountInOneSimulation = 0.0;
 		aggregatedVehicleTravelSpeedInOneSimulation = 0.0;
+		numRouteCacheHitsInOneSimulation = 0;
+		numRouteCacheMissesInOneSimulation = 0;
 
 		// Reset worker status
 		for (final WorkerMeta worker : workerMetas) {
@@ -648,9 +658,12 @@ public class Server implements MessageHandler, Runnable {
 		processCachedReceivedTrafficReports();
 		fileOutput.outputSimLog(step, simulationWallTime,
 				totalNumWwCommChannels, aggregatedVehicleCountInOneSimulation,
-				aggregatedVehicleTravelSpeedInOneSimulation);
+				aggregatedVehicleTravelSpeedInOneSimulation, numRouteCacheHitsInOneSimulation,
+				numRouteCacheMissesInOneSimulation);
 		aggregatedVehicleCountInOneSimulation = 0.0;
 		aggregatedVehicleTravelSpeedInOneSimulation = 0.0;
+		numRouteCacheHitsInOneSimulation = 0;
+		numRouteCacheMissesInOneSimulation = 0;
 		fileOutput.outputRoutes(routesForOutput);
 		routesForOutput.clear();
 		fileOutput.outputTrajectories(trajectoriesForOutput);
@@ -695,6 +708,15 @@ public class Server implements MessageHandler, Runnable {
 		simulationWallTime += (double) (System.nanoTime() - timeStamp) / 1000000000;
 	}
 
+	void decodeTrafficReport(final Message_WS_TrafficReport report) {
+		for (final WorkerMeta worker : workerMetas) {
+			if (worker.name.equals(report.workerName)) {
+				worker.trafficReportDecoder.decode(report, roadNetwork);
+				break;
+			}
+		}
+	}
+
 	synchronized void updateWorkerState(final String workerName,
 			final WorkerState state) {
 		for (final WorkerMeta worker : workerMetas) {
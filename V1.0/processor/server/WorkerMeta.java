@@ -4,6 +4,7 @@ import java.util.ArrayList;
 
 import processor.communication.MessageSender;
 import processor.communication.message.SerializableExternalVehicle;
+import processor.communication.message.TrafficReportDecoder;
 import processor.worker.Workarea;
 import traffic.road.GridCell;
 
@@ -20,6 +21,7 @@ public class WorkerMeta {
 	public int numRandomBuses;
 	public WorkerState state = WorkerState.NEW;
 	public ArrayList<SerializableExternalVehicle> externalRoutes = new ArrayList<>();
+	public TrafficReportDecoder trafficReportDecoder = new TrafficReportDecoder();
 
 	/**
 	 *
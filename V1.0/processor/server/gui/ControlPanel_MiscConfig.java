@@ -210,7 +210,8 @@ public class ControlPanel_MiscConfig extends JPanel {
 
 		comboBoxRouting = new JComboBox(new Object[] {});
 		comboBoxRouting.setModel(new DefaultComboBoxModel(new String[] {
-				"DIJKSTRA", "RANDOM_A_STAR", "SIMPLE" }));
+				"DIJKSTRA", "RANDOM_A_STAR", "SIMPLE", "CONTRACTION_HIERARCHIES", "ALT_A_STAR",
+				"BIDIRECTIONAL_DIJKSTRA", "CONGESTION_AWARE" }));
 		comboBoxRouting.setSelectedIndex(0);
 		comboBoxRouting.setFont(new Font("Tahoma", Font.PLAIN, 13));
 		final GridBagConstraints gbc_chckbxIncludePublicVehicles = new GridBagConstraints();
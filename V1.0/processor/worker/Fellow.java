@@ -83,4 +83,16 @@ public class Fellow {
 		senderForFellow.send(message);
 	}
 
+	void startBatch() {
+		senderForFellow.startBatch();
+	}
+
+	void flush() {
+		senderForFellow.flush();
+	}
+
+	void endBatch() {
+		senderForFellow.endBatch();
+	}
+
 }
@@ -1,7 +1,8 @@
 package processor.worker;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import common.Settings;
 import processor.communication.message.SerializableTrajectoryPoint;
@@ -10,11 +11,13 @@ import traffic.light.TrafficLightTiming;
 import traffic.road.Edge;
 import traffic.road.GridCell;
 import traffic.road.Lane;
+import traffic.road.LaneSet;
 import traffic.routing.RouteLeg;
 import traffic.vehicle.CarFollow;
 import traffic.vehicle.LaneChange;
 import traffic.vehicle.LaneChangeDirection;
 import traffic.vehicle.Vehicle;
+import traffic.vehicle.VehicleStateStore;
 import traffic.vehicle.VehicleType;
 import traffic.vehicle.VehicleUtil;
 
@@ -25,6 +28,47 @@ import traffic.vehicle.VehicleUtil;
  *
  */
 public class Simulation {
+	/**
+	 * The result of moving a vehicle along its route when its head position
+	 * passes the end of its current edge. The result is computed without
+	 * changing the vehicle or the road network, and is committed later.
+	 */
+	static class LinkTransition {
+		Vehicle vehicle;
+		double headPosition;
+		int indexLegOnRoute;
+		Lane lane;
+		long idLightGroupPassed;
+		boolean isReachedDestination;
+		boolean isParking;
+		Fellow fellowReached;
+	}
+
+	/**
+	 * A piece of work that is applied to a contiguous range of items in one
+	 * partition during a parallel step.
+	 */
+	abstract class PartitionedWork {
+		abstract void run(int partition, int start, int end);
+	}
+
+	class PartitionRunnable implements Runnable {
+		PartitionedWork work;
+		int partition, start, end;
+
+		PartitionRunnable(final PartitionedWork work, final int partition, final int start, final int end) {
+			this.work = work;
+			this.partition = partition;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public void run() {
+			work.run(partition, start, end);
+		}
+	}
+
 	TrafficNetwork trafficNetwork;
 	Workarea workarea;
 	ArrayList<Fellow> connectedFellows;
@@ -34,16 +78,45 @@ public class Simulation {
 	VehicleUtil vehicleUtil = new VehicleUtil();
 	LaneChange laneChange = new LaneChange(vehicleUtil);
 	CarFollow carFollow = new CarFollow(vehicleUtil);
+	/*
+	 * For parallel step. Each partition uses its own models as the models keep
+	 * temporary data during computation.
+	 */
+	final int minVehiclesPerPartition = 256;
+	CarFollow[] carFollowOfPartitions = new CarFollow[0];
+	LaneChange[] laneChangeOfPartitions = new LaneChange[0];
+	boolean[] isEdgeWithLaneChange = new boolean[0];
+	ArrayList<Edge> edgesWithLaneChange = new ArrayList<>();
+	boolean isParallelStep = false;
+	/**
+	 * Whether the speeds on edges are estimated in the current step. This is
+	 * only needed when routing uses travel times.
+	 */
+	boolean isEstimatingEdgeSpeeds = false;
+	/*
+	 * Temporary data that is reused in every step, so simulating a step does
+	 * not create new objects for each vehicle.
+	 */
+	ArrayList<Vehicle> vehiclesAroundBorder = new ArrayList<>();
+	ArrayList<Vehicle> vehiclesNotAroundBorder = new ArrayList<>();
+	LinkTransition[] linkTransitions = new LinkTransition[0];
+	boolean[] isLinkTransitionDecided = new boolean[0];
+	ArrayList<Vehicle> laneChangeCandidates = new ArrayList<>();
+	LaneChangeDirection[] laneChangeDecisions = new LaneChangeDirection[0];
+	boolean[] isRandomLaneChangeDecision = new boolean[0];
+	double[] distToImpedingObjectBeforeLaneChange = new double[0];
+	double[] spdOfImpedingObjectBeforeLaneChange = new double[0];
+	boolean[] isAffectedByPriorityVehicleBeforeLaneChange = new boolean[0];
 
 	public Simulation(final TrafficNetwork trafficNetwork,
 			final ArrayList<Fellow> connectedFellows, final Workarea workarea) {
 		this.trafficNetwork = trafficNetwork;
 		this.workarea = workarea;
 		this.connectedFellows = connectedFellows;
+		vehicleUtil.vehicleStates = trafficNetwork.vehicleStates;
 	}
 
 	void blockTramAtTramStop() {
-		final double lookAheadDist = Settings.lookAheadDistance;
 		for (int i = 0; i < trafficNetwork.vehicles.size(); i++) {
 			final Vehicle vehicle = trafficNetwork.vehicles.get(i);
 			if (!vehicle.active || (vehicle.lane == null)) {
@@ -52,19 +125,16 @@ public class Simulation {
 
 			if (vehicle.type == VehicleType.TRAM) {
 				final double brakingDist = VehicleUtil.getBrakingDistance(vehicle);
-				double examinedDist = 0;
-				for (int j = vehicle.indexLegOnRoute; j < vehicle.routeLegs.size(); j++) {
+				final int indexLastLeg = vehicle.getIndexLastLegInLookAhead();
+				for (int j = vehicle.indexLegOnRoute; j <= indexLastLeg; j++) {
 					final Edge edge = vehicle.routeLegs.get(j).edge;
-					examinedDist += edge.length;
+					final double examinedDist = vehicle.getDistToLegStart(j + 1);
 					if (edge.endNode.tramStop && ((examinedDist - vehicle.headPosition) < (2 * brakingDist))
 							&& ((examinedDist - vehicle.headPosition) > brakingDist) && (edge.timeNoTramStopping <= 0)
 							&& (edge.timeTramStopping <= 0)) {
 						edge.timeTramStopping = Settings.periodOfTrafficWaitForTramAtStop;
 						break;
 					}
-					if ((examinedDist - vehicle.headPosition) > lookAheadDist) {
-						break;
-					}
 				}
 			}
 		}
@@ -76,223 +146,479 @@ public class Simulation {
 		oneStepData_allVehiclesReachedDestination.clear();
 	}
 
-	void makeLaneChange(final double timeNow) {
-		for (int i = 0; i < trafficNetwork.vehicles.size(); i++) {
-			final Vehicle vehicle = trafficNetwork.vehicles.get(i);
-
-			if ((vehicle.lane == null) || !vehicle.active || (vehicle.type == VehicleType.TRAM)
-					|| ((timeNow - vehicle.timeOfLastLaneChange) < vehicle.driverProfile.minLaneChangeTimeGap)) {
-				continue;
-			}
+	/**
+	 * Change the lane of a vehicle based on a lane-change decision.
+	 */
+	void changeLane(final double timeNow, final Vehicle vehicle, final LaneChangeDirection laneChangeDecision) {
+		// Cancel priority lanes
+		if (vehicle.type == VehicleType.PRIORITY) {
+			VehicleUtil.setPriorityLanes(vehicle, false);
+		}
 
-			LaneChangeDirection laneChangeDecision = LaneChangeDirection.SAME;
-			laneChangeDecision = laneChange.decideLaneChange(vehicle);
+		vehicle.timeOfLastLaneChange = timeNow;
+		final Lane currentLane = vehicle.lane;
+		Lane nextLane = null;
+		if (laneChangeDecision == LaneChangeDirection.AWAY_FROM_ROADSIDE) {
+			nextLane = currentLane.edge.lanes.get(currentLane.laneNumber + 1);
+		} else if (laneChangeDecision == LaneChangeDirection.TOWARDS_ROADSIDE) {
+			nextLane = currentLane.edge.lanes.get(currentLane.laneNumber - 1);
+		}
+		currentLane.vehicles.remove(vehicle);
+		nextLane.vehicles.add(vehicle);
+		vehicle.lane = nextLane;
+		trafficNetwork.updateVehicleState(vehicle);
+
+		// Set priority lanes
+		if (vehicle.type == VehicleType.PRIORITY) {
+			VehicleUtil.setPriorityLanes(vehicle, true);
+		}
+	}
 
-			if (laneChangeDecision != LaneChangeDirection.SAME) {
+	/**
+	 * Check whether a vehicle can consider lane-change at this moment.
+	 */
+	boolean isLaneChangeCandidate(final double timeNow, final Vehicle vehicle) {
+		return (vehicle.lane != null) && vehicle.active && (vehicle.type != VehicleType.TRAM)
+				&& ((timeNow - vehicle.timeOfLastLaneChange) >= vehicle.driverProfile.minLaneChangeTimeGap);
+	}
 
-				// Cancel priority lanes
-				if (vehicle.type == VehicleType.PRIORITY) {
-					VehicleUtil.setPriorityLanes(vehicle, false);
+	/**
+	 * Check whether a lane-change decision of a vehicle may be affected by the
+	 * lane-changes made earlier at the same step. The decision is based on the
+	 * lanes within look-ahead distance on the vehicle's route, as well as the
+	 * lanes leading to the intersections within the distance.
+	 */
+	boolean isLaneChangeDecisionAffectedByEarlierChanges(final Vehicle vehicle) {
+		if (edgesWithLaneChange.size() == 0) {
+			return false;
+		}
+		if (isEdgeWithLaneChange[vehicle.lane.edge.index]) {
+			return true;
+		}
+		final int indexLastLeg = vehicle.getIndexLastLegInLookAhead();
+		for (int i = vehicle.indexLegOnRoute; i <= indexLastLeg; i++) {
+			final Edge edge = vehicle.routeLegs.get(i).edge;
+			if (isEdgeWithLaneChange[edge.index]) {
+				return true;
+			}
+			for (final Edge inwardEdge : edge.endNode.inwardEdges) {
+				if (isEdgeWithLaneChange[inwardEdge.index]) {
+					return true;
 				}
+			}
+		}
+		return false;
+	}
+
+	void makeLaneChange(final double timeNow) {
+		if (!isParallelStep) {
+			makeLaneChangeSerially(timeNow);
+			return;
+		}
+
+		final ArrayList<Vehicle> candidates = laneChangeCandidates;
+		candidates.clear();
+		for (int i = 0; i < trafficNetwork.vehicles.size(); i++) {
+			final Vehicle vehicle = trafficNetwork.vehicles.get(i);
+			if (isLaneChangeCandidate(timeNow, vehicle)) {
+				candidates.add(vehicle);
+			}
+		}
 
-				vehicle.timeOfLastLaneChange = timeNow;
-				final Lane currentLane = vehicle.lane;
-				Lane nextLane = null;
-				if (laneChangeDecision == LaneChangeDirection.AWAY_FROM_ROADSIDE) {
-					nextLane = currentLane.edge.lanes.get(currentLane.laneNumber + 1);
-				} else if (laneChangeDecision == LaneChangeDirection.TOWARDS_ROADSIDE) {
-					nextLane = currentLane.edge.lanes.get(currentLane.laneNumber - 1);
+		/*
+		 * Decide lane-change of all the candidates in parallel based on the
+		 * traffic before any change. Data that the decision may write to a
+		 * vehicle is saved so a decision can be repeated later.
+		 */
+		if (laneChangeDecisions.length < candidates.size()) {
+			final int capacity = candidates.size() * 2;
+			laneChangeDecisions = new LaneChangeDirection[capacity];
+			isRandomLaneChangeDecision = new boolean[capacity];
+			distToImpedingObjectBeforeLaneChange = new double[capacity];
+			spdOfImpedingObjectBeforeLaneChange = new double[capacity];
+			isAffectedByPriorityVehicleBeforeLaneChange = new boolean[capacity];
+		}
+		final LaneChangeDirection[] decisions = laneChangeDecisions;
+		final boolean[] isRandomDecision = isRandomLaneChangeDecision;
+		final double[] distToImpedingObject = distToImpedingObjectBeforeLaneChange;
+		final double[] spdOfImpedingObject = spdOfImpedingObjectBeforeLaneChange;
+		final boolean[] isAffectedByPriorityVehicle = isAffectedByPriorityVehicleBeforeLaneChange;
+		runInPartitions(candidates.size(), new PartitionedWork() {
+			@Override
+			void run(final int partition, final int start, final int end) {
+				final LaneChange laneChangeOfPartition = laneChangeOfPartitions[partition];
+				for (int i = start; i < end; i++) {
+					final Vehicle vehicle = candidates.get(i);
+					distToImpedingObject[i] = vehicle.distToImpedingObject;
+					spdOfImpedingObject[i] = vehicle.spdOfImpedingObject;
+					isAffectedByPriorityVehicle[i] = vehicle.isAffectedByPriorityVehicle;
+					decisions[i] = laneChangeOfPartition.decideLaneChange(vehicle);
+					isRandomDecision[i] = laneChangeOfPartition.isLastDecisionRandom();
 				}
-				currentLane.vehicles.remove(vehicle);
-				nextLane.vehicles.add(vehicle);
-				vehicle.lane = nextLane;
-				Collections.sort(vehicle.lane.vehicles, trafficNetwork.vehiclePositionComparator);// Sort
-
-				// Set priority lanes
-				if (vehicle.type == VehicleType.PRIORITY) {
-					VehicleUtil.setPriorityLanes(vehicle, true);
+			}
+		});
+
+		/*
+		 * Commit the decisions in the same order as serial simulation. A
+		 * decision is made again if it may be affected by the changes committed
+		 * before it, or if it involves random choice.
+		 */
+		if (isEdgeWithLaneChange.length != trafficNetwork.edges.size()) {
+			isEdgeWithLaneChange = new boolean[trafficNetwork.edges.size()];
+		}
+		for (int i = 0; i < candidates.size(); i++) {
+			final Vehicle vehicle = candidates.get(i);
+			LaneChangeDirection laneChangeDecision = decisions[i];
+			if (isRandomDecision[i] || isLaneChangeDecisionAffectedByEarlierChanges(vehicle)) {
+				vehicle.distToImpedingObject = distToImpedingObject[i];
+				vehicle.spdOfImpedingObject = spdOfImpedingObject[i];
+				vehicle.isAffectedByPriorityVehicle = isAffectedByPriorityVehicle[i];
+				laneChangeDecision = laneChange.decideLaneChange(vehicle);
+			}
+			if (laneChangeDecision != LaneChangeDirection.SAME) {
+				changeLane(timeNow, vehicle, laneChangeDecision);
+				if (!isEdgeWithLaneChange[vehicle.lane.edge.index]) {
+					isEdgeWithLaneChange[vehicle.lane.edge.index] = true;
+					edgesWithLaneChange.add(vehicle.lane.edge);
 				}
 			}
 		}
+		for (int i = 0; i < edgesWithLaneChange.size(); i++) {
+			isEdgeWithLaneChange[edgesWithLaneChange.get(i).index] = false;
+		}
+		edgesWithLaneChange.clear();
+		candidates.clear();
 	}
 
-	ArrayList<Vehicle> moveVehicleForward(final double timeNow, final ArrayList<Edge> edges, Worker worker) {
-		final ArrayList<Vehicle> vehicles = new ArrayList<>();
-		for (final Edge edge : edges) {
-			for (final Lane lane : edge.lanes) {
-				for (final Vehicle vehicle : lane.vehicles) {
+	void makeLaneChangeSerially(final double timeNow) {
+		for (int i = 0; i < trafficNetwork.vehicles.size(); i++) {
+			final Vehicle vehicle = trafficNetwork.vehicles.get(i);
 
-					if (!vehicle.active) {
-						continue;
-					}
+			if (!isLaneChangeCandidate(timeNow, vehicle)) {
+				continue;
+			}
 
-					vehicles.add(vehicle);
+			LaneChangeDirection laneChangeDecision = LaneChangeDirection.SAME;
+			laneChangeDecision = laneChange.decideLaneChange(vehicle);
 
-					// Reset priority vehicle effect flag
-					vehicle.isAffectedByPriorityVehicle = false;
-					// Update information regarding turning
-					VehicleUtil.findEdgeBeforeNextTurn(vehicle);
+			if (laneChangeDecision != LaneChangeDirection.SAME) {
+				changeLane(timeNow, vehicle, laneChangeDecision);
+			}
+		}
+	}
 
-					/*
-					 * Reset jam start time if vehicle is not in jam
-					 */
-					if (vehicle.speed > Settings.congestionSpeedThreshold) {
-						vehicle.timeJamStart = timeNow;
-					}
+	/**
+	 * Move forward the vehicles on a set of lanes. Only the lanes that contain
+	 * vehicles are visited, in the order of lane index. The moved vehicles are
+	 * put in a given list.
+	 */
+	ArrayList<Vehicle> moveVehicleForward(final double timeNow, final LaneSet lanes, final ArrayList<Vehicle> vehicles,
+			Worker worker) {
+		vehicles.clear();
+		final boolean isParallel = isParallelStep;
+		final VehicleStateStore states = trafficNetwork.vehicleStates;
+		final LaneSet occupiedLanes = trafficNetwork.occupiedLanes;
+		for (int i = occupiedLanes.nextIndexInBoth(lanes, 0); i >= 0; i = occupiedLanes.nextIndexInBoth(lanes,
+				i + 1)) {
+			final Lane lane = trafficNetwork.lanes.get(i);
+			for (int j = 0; j < lane.vehicles.size(); j++) {
+				final Vehicle vehicle = lane.vehicles.get(j);
+
+				if (!vehicle.active) {
+					continue;
+				}
 
-					// Check whether road is explicitly blocked on vehicle's route
-					VehicleUtil.updateRoadBlockInfoForVehicle(vehicle);
-
-					/*
-					 * Re-route vehicle in certain situations
-					 */
-					if (Settings.isAllowReroute) {
-						boolean reRoute = false;
-						// Reroute happens if vehicle has moved too slowly for too long or the road is
-						// blocked ahead
-						if (vehicle.indexLegOnRoute < (vehicle.routeLegs.size() - 1)) {
-							if ((timeNow - vehicle.timeJamStart) > vehicle.driverProfile.minRerouteTimeGap
-									|| vehicle.isRoadBlockedAhead) {
-								reRoute = true;
-							}
-						}
-
-						if (reRoute) {
-							// Cancel priority lanes
-							if (vehicle.type == VehicleType.PRIORITY) {
-								VehicleUtil.setPriorityLanes(vehicle, false);
-							}
-
-							// Reroute vehicle
-							trafficNetwork.routingAlgorithm.reRoute(vehicle);
-
-							// Reset jam start time
-							vehicle.timeJamStart = timeNow;
-							// Increment reroute count
-							vehicle.numReRoute++;
-							// Limit number of re-route for internal vehicle
-							if ((vehicle.numReRoute > Settings.maxNumReRouteOfVehicle)) {
-								oneStepData_allVehiclesReachedDestination.add(vehicle);
-							}
-						}
-					}
+				vehicles.add(vehicle);
 
-					// Set priority lanes
-					if (vehicle.type == VehicleType.PRIORITY) {
-						VehicleUtil.setPriorityLanes(vehicle, true);
-					}
+				prepareForComputingAcceleration(timeNow, vehicle);
 
+				if (!isParallel) {
 					// Find impeding objects and compute acceleration based on the objects
 					vehicle.acceleration = carFollow.computeAccelerationBasedOnImpedingObjects(vehicle);
-
+					states.acceleration[vehicle.slot] = vehicle.acceleration;
 				}
+			}
+		}
 
+		if (!isParallel) {
+			for (int i = 0; i < vehicles.size(); i++) {
+				updateSpeedAndPosition(timeNow, vehicles.get(i));
 			}
+			return vehicles;
 		}
 
-		// Update speed, position and travel time of vehicles
-		for (Vehicle vehicle : vehicles) {
-			// Update vehicle speed, which must be between 0 and free-flow speed
-			vehicle.speed += vehicle.acceleration / Settings.numStepsPerSecond;
-			if (vehicle.speed > vehicle.lane.edge.freeFlowSpeed) {
-				vehicle.speed = vehicle.lane.edge.freeFlowSpeed;
+		/*
+		 * Accelerations only depend on the speed and position of vehicles at
+		 * the beginning of the step. Hence all the accelerations are computed
+		 * before any vehicle moves.
+		 */
+		runInPartitions(vehicles.size(), new PartitionedWork() {
+			@Override
+			void run(final int partition, final int start, final int end) {
+				final CarFollow carFollowOfPartition = carFollowOfPartitions[partition];
+				for (int i = start; i < end; i++) {
+					final Vehicle vehicle = vehicles.get(i);
+					vehicle.acceleration = carFollowOfPartition.computeAccelerationBasedOnImpedingObjects(vehicle);
+					states.acceleration[vehicle.slot] = vehicle.acceleration;
+				}
 			}
-			if (vehicle.speed < 0) {
-				vehicle.speed = 0;
+		});
+		runInPartitions(vehicles.size(), new PartitionedWork() {
+			@Override
+			void run(final int partition, final int start, final int end) {
+				for (int i = start; i < end; i++) {
+					updateSpeedAndPosition(timeNow, vehicles.get(i));
+				}
+			}
+		});
+
+		return vehicles;
+	}
+
+	/**
+	 * Update the information that is needed for computing the acceleration of
+	 * a vehicle, such as turning and road blocks on its route. The vehicle is
+	 * re-routed if necessary.
+	 */
+	void prepareForComputingAcceleration(final double timeNow, final Vehicle vehicle) {
+		// Reset priority vehicle effect flag
+		vehicle.isAffectedByPriorityVehicle = false;
+		// Update information regarding turning
+		VehicleUtil.findEdgeBeforeNextTurn(vehicle);
+
+		/*
+		 * Reset jam start time if vehicle is not in jam
+		 */
+		if (vehicle.speed > Settings.congestionSpeedThreshold) {
+			vehicle.timeJamStart = timeNow;
+		}
+
+		// Add vehicle speed to the speed estimate of its edge
+		if (isEstimatingEdgeSpeeds) {
+			trafficNetwork.edgeSpeedEstimator.addSample(vehicle.lane.edge, vehicle.speed);
+		}
+
+		// Check whether road is explicitly blocked on vehicle's route
+		VehicleUtil.updateRoadBlockInfoForVehicle(vehicle);
+
+		/*
+		 * Re-route vehicle in certain situations
+		 */
+		if (Settings.isAllowReroute) {
+			boolean reRoute = false;
+			// Reroute happens if vehicle has moved too slowly for too long or the road is
+			// blocked ahead
+			if ((vehicle.indexLegOnRoute < (vehicle.routeLegs.size() - 1)) && !vehicle.isWaitingForReRoute) {
+				if ((timeNow - vehicle.timeJamStart) > vehicle.driverProfile.minRerouteTimeGap
+						|| vehicle.isRoadBlockedAhead) {
+					reRoute = true;
+				}
 			}
-			// Vehicle cannot collide with its impeding object
-			final double distToImpedingObjectAtNextStep = vehicle.distToImpedingObject
-					+ ((vehicle.spdOfImpedingObject - vehicle.speed) / Settings.numStepsPerSecond);
-			if (distToImpedingObjectAtNextStep < vehicle.driverProfile.IDM_s0) {
-				vehicle.speed = 0;
-				vehicle.acceleration = 0;
+
+			if (reRoute) {
+				// Request new route, which is given to vehicle in a later step
+				trafficNetwork.reRouteService.request(vehicle);
+
+				// Reset jam start time
+				vehicle.timeJamStart = timeNow;
 			}
+		}
 
-			// Move forward
-			vehicle.headPosition += vehicle.speed / Settings.numStepsPerSecond;
-			vehicle.timeTravel = timeNow - vehicle.timeRouteStart;
+		// Set priority lanes
+		if (vehicle.type == VehicleType.PRIORITY) {
+			VehicleUtil.setPriorityLanes(vehicle, true);
+		}
+	}
 
+	/**
+	 * Update speed, position and travel time of vehicle
+	 */
+	void updateSpeedAndPosition(final double timeNow, final Vehicle vehicle) {
+		final VehicleStateStore states = trafficNetwork.vehicleStates;
+		final int slot = vehicle.slot;
+		// Update vehicle speed, which must be between 0 and free-flow speed
+		double speed = states.speed[slot] + (states.acceleration[slot] / Settings.numStepsPerSecond);
+		if (speed > states.freeFlowSpeed[slot]) {
+			speed = states.freeFlowSpeed[slot];
+		}
+		if (speed < 0) {
+			speed = 0;
+		}
+		// Vehicle cannot collide with its impeding object
+		final double distToImpedingObjectAtNextStep = vehicle.distToImpedingObject
+				+ ((vehicle.spdOfImpedingObject - speed) / Settings.numStepsPerSecond);
+		if (distToImpedingObjectAtNextStep < VehicleStateStore.IDM_s0[states.profileId[slot]]) {
+			speed = 0;
+			states.acceleration[slot] = 0;
+			vehicle.acceleration = 0;
 		}
 
-		return vehicles;
+		// Move forward
+		states.speed[slot] = speed;
+		states.headPosition[slot] += speed / Settings.numStepsPerSecond;
+		vehicle.speed = speed;
+		vehicle.headPosition = states.headPosition[slot];
+		vehicle.timeTravel = timeNow - vehicle.timeRouteStart;
 	}
 
 	void moveVehicleToNextLink(final double timeNow, final ArrayList<Vehicle> vehiclesToCheck) {
-		for (final Vehicle vehicle : vehiclesToCheck) {
-
-			if (!vehicle.active) {
-				continue;
+		final int numTransitions = Math.max(1, vehiclesToCheck.size());
+		if (linkTransitions.length < numTransitions) {
+			final int capacity = numTransitions * 2;
+			final LinkTransition[] newLinkTransitions = new LinkTransition[capacity];
+			System.arraycopy(linkTransitions, 0, newLinkTransitions, 0, linkTransitions.length);
+			for (int i = linkTransitions.length; i < capacity; i++) {
+				newLinkTransitions[i] = new LinkTransition();
 			}
-			double overshootDist = vehicle.headPosition - vehicle.lane.edge.length;
+			linkTransitions = newLinkTransitions;
+			isLinkTransitionDecided = new boolean[capacity];
+		}
 
-			if (overshootDist >= 0) {
+		if (!isParallelStep) {
+			final LinkTransition transition = linkTransitions[0];
+			for (int i = 0; i < vehiclesToCheck.size(); i++) {
+				if (decideLinkTransition(vehiclesToCheck.get(i), transition)) {
+					commitLinkTransition(timeNow, transition);
+				}
+			}
+			return;
+		}
 
-				// Cancel priority lanes
-				if (vehicle.type == VehicleType.PRIORITY) {
-					VehicleUtil.setPriorityLanes(vehicle, false);
+		/*
+		 * Transitions are decided in parallel as they only depend on the
+		 * vehicles themselves. They are committed in the original order, so
+		 * vehicles entering the same lane are handled in the same way as in
+		 * serial simulation.
+		 */
+		final LinkTransition[] transitions = linkTransitions;
+		final boolean[] isDecided = isLinkTransitionDecided;
+		runInPartitions(vehiclesToCheck.size(), new PartitionedWork() {
+			@Override
+			void run(final int partition, final int start, final int end) {
+				for (int i = start; i < end; i++) {
+					isDecided[i] = decideLinkTransition(vehiclesToCheck.get(i), transitions[i]);
 				}
+			}
+		});
+		for (int i = 0; i < vehiclesToCheck.size(); i++) {
+			if (isDecided[i]) {
+				commitLinkTransition(timeNow, transitions[i]);
+			}
+		}
+	}
 
-				final Lane oldLane = vehicle.lane;
+	/**
+	 * Find the new position of a vehicle on its route if the vehicle has passed
+	 * the end of its current edge. This method does not change the vehicle.
+	 *
+	 * @return Whether the vehicle needs to move to a new edge.
+	 */
+	boolean decideLinkTransition(final Vehicle vehicle, final LinkTransition transition) {
+		if (!vehicle.active) {
+			return false;
+		}
+		double overshootDist = vehicle.headPosition - vehicle.lane.edge.length;
+		if (overshootDist < 0) {
+			return false;
+		}
 
-				while ((vehicle.indexLegOnRoute < vehicle.routeLegs.size()) && (overshootDist >= 0)) {
-					// Update head position
-					vehicle.headPosition -= vehicle.lane.edge.length;
-					// Update route leg
-					vehicle.indexLegOnRoute++;
+		transition.vehicle = vehicle;
+		transition.headPosition = vehicle.headPosition;
+		transition.indexLegOnRoute = vehicle.indexLegOnRoute;
+		transition.lane = vehicle.lane;
+		transition.idLightGroupPassed = vehicle.idLightGroupPassed;
+		transition.isReachedDestination = false;
+		transition.isParking = false;
+		transition.fellowReached = null;
+
+		while ((transition.indexLegOnRoute < vehicle.routeLegs.size()) && (overshootDist >= 0)) {
+			// Update head position
+			transition.headPosition -= transition.lane.edge.length;
+			// Update route leg
+			transition.indexLegOnRoute++;
+
+			// Check whether vehicle finishes trip
+			if (transition.indexLegOnRoute >= vehicle.routeLegs.size()) {
+				transition.isReachedDestination = true;
+				break;
+			}
+			// Locate the new lane of vehicle. If the specified lane does not exist (e.g.,
+			// moving from primary road to secondary road), change to the one with the
+			// highest lane number
+			final RouteLeg nextLeg = vehicle.routeLegs.get(transition.indexLegOnRoute);
+			final Edge nextEdge = nextLeg.edge;
+			if (nextEdge.lanes.size() <= transition.lane.laneNumber) {
+				transition.lane = nextEdge.lanes.get(nextEdge.lanes.size() - 1);
+			} else {
+				transition.lane = nextEdge.lanes.get(transition.lane.laneNumber);
+			}
+			// Remember the cluster of traffic lights
+			if (nextEdge.startNode.idLightNodeGroup != 0) {
+				transition.idLightGroupPassed = nextEdge.startNode.idLightNodeGroup;
+			}
+			// Update the overshoot distance of vehicle
+			overshootDist -= nextEdge.length;
+			// Check whether vehicle reaches fellow worker
+			transition.fellowReached = getFellowAtLaneEnd(transition.lane);
+			if (transition.fellowReached != null) {
+				break;
+			}
+			// Park vehicle as plan if vehicle remains on the same
+			// worker
+			if (nextLeg.stopover > 0) {
+				transition.isParking = true;
+				break;
+			}
+		}
+		return true;
+	}
 
-					// Check whether vehicle finishes trip
-					if (vehicle.active && (vehicle.indexLegOnRoute >= vehicle.routeLegs.size())) {
-						oneStepData_allVehiclesReachedDestination.add(vehicle);
+	/**
+	 * Move a vehicle to its new position decided by
+	 * {@link #decideLinkTransition(Vehicle, LinkTransition)}.
+	 */
+	void commitLinkTransition(final double timeNow, final LinkTransition transition) {
+		final Vehicle vehicle = transition.vehicle;
 
-						if (vehicle.isForeground) {
-							oneStepData_foregroundVehiclesReachedDestination.add(vehicle);
-						}
-						break;
-					}
-					// Locate the new lane of vehicle. If the specified lane does not exist (e.g.,
-					// moving from primary road to secondary road), change to the one with the
-					// highest lane number
-					final RouteLeg nextLeg = vehicle.routeLegs.get(vehicle.indexLegOnRoute);
-					final Edge nextEdge = nextLeg.edge;
-					if (nextEdge.lanes.size() <= vehicle.lane.laneNumber) {
-						vehicle.lane = nextEdge.lanes.get(nextEdge.lanes.size() - 1);
-					} else {
-						vehicle.lane = nextEdge.lanes.get(vehicle.lane.laneNumber);
-					}
-					// Remember the cluster of traffic lights
-					if (nextEdge.startNode.idLightNodeGroup != 0) {
-						vehicle.idLightGroupPassed = nextEdge.startNode.idLightNodeGroup;
-					}
-					// Update the overshoot distance of vehicle
-					overshootDist -= nextEdge.length;
-					// Check whether vehicle reaches fellow worker
-					if (reachFellow(vehicle)) {
-						oneStepData_vehiclesReachedFellowWorker.add(vehicle);
-						break;
-					}
-					// Park vehicle as plan if vehicle remains on the same
-					// worker
-					if (nextLeg.stopover > 0) {
-						trafficNetwork.parkOneVehicle(vehicle, false, timeNow);
-						break;
-					}
-				}
+		// Cancel priority lanes
+		if (vehicle.type == VehicleType.PRIORITY) {
+			VehicleUtil.setPriorityLanes(vehicle, false);
+		}
 
-				// Remove vehicle from old lane
-				oldLane.vehicles.remove(vehicle);
-				// Add vehicle to new lane
-				if (vehicle.lane != null) {
-					vehicle.lane.vehicles.add(vehicle);
-					Collections.sort(vehicle.lane.vehicles, trafficNetwork.vehiclePositionComparator);// Sort
-				}
+		final Lane oldLane = vehicle.lane;
 
-				// Set priority lanes
-				if (vehicle.type == VehicleType.PRIORITY) {
-					VehicleUtil.setPriorityLanes(vehicle, true);
-				}
+		vehicle.headPosition = transition.headPosition;
+		vehicle.indexLegOnRoute = transition.indexLegOnRoute;
+		vehicle.lane = transition.lane;
+		vehicle.idLightGroupPassed = transition.idLightGroupPassed;
+		trafficNetwork.updateVehicleState(vehicle);
+
+		if (transition.isReachedDestination) {
+			oneStepData_allVehiclesReachedDestination.add(vehicle);
+
+			if (vehicle.isForeground) {
+				oneStepData_foregroundVehiclesReachedDestination.add(vehicle);
 			}
+		} else if (transition.fellowReached != null) {
+			// The vehicle will be transferred to the fellow worker
+			vehicle.active = false;
+			transition.fellowReached.vehiclesToCreateAtBorder.add(vehicle);
+			oneStepData_vehiclesReachedFellowWorker.add(vehicle);
+		} else if (transition.isParking) {
+			trafficNetwork.parkOneVehicle(vehicle, false, timeNow);
+		}
+
+		// Remove vehicle from old lane
+		oldLane.vehicles.remove(vehicle);
+		// Add vehicle to new lane at the position given by its head position
+		if (vehicle.lane != null) {
+			vehicle.lane.vehicles.add(vehicle);
 		}
 
+		// Set priority lanes
+		if (vehicle.type == VehicleType.PRIORITY) {
+			VehicleUtil.setPriorityLanes(vehicle, true);
+		}
 	}
 
 	/**
@@ -310,56 +636,101 @@ public class Simulation {
 	}
 
 	/**
-	 * Check whether a vehicle reaches the work area of a fellow worker.
+	 * Find the fellow worker whose work area covers the end node of a lane's
+	 * edge. Returns null if the end node is in the work area of this worker.
 	 */
-	boolean reachFellow(final Vehicle vehicle) {
-		if (vehicle.lane == null) {
-			return false;
-		}
-
-		// Does vehicle's edge end in the current workarea?
-		if (workarea.workCells.contains(vehicle.lane.edge.endNode.gridCell)) {
-			return false;
+	Fellow getFellowAtLaneEnd(final Lane lane) {
+		// Does the edge end in the current workarea?
+		if (workarea.workCells.contains(lane.edge.endNode.gridCell)) {
+			return null;
 		} else {
-			// The vehicle will be transferred to the fellow worker whose area covers the end node of the vehicle's edge 
+			// The vehicle will be transferred to the fellow worker whose area covers the end node of the vehicle's edge
 			for (final Fellow fellowWorker : connectedFellows) {
-				if(fellowWorker.workarea.workCells.contains(vehicle.lane.edge.endNode.gridCell)){
-					vehicle.active = false;
-					fellowWorker.vehiclesToCreateAtBorder.add(vehicle);
-					return true;
+				if (fellowWorker.workarea.workCells.contains(lane.edge.endNode.gridCell)) {
+					return fellowWorker;
 				}
 			}
 		}
-		return false;
+		return null;
 	}
 
 	/**
-	 * Try to move vehicle from parking area onto roads. A vehicle can only be
-	 * released from parking if the current time has passed the earliest start time
-	 * of the vehicle.
-	 *
+	 * Check whether the steps can be simulated with multiple threads. Parallel
+	 * computation produces the same result as serial computation. This is not
+	 * possible when there are priority vehicles, as a priority vehicle changes
+	 * the lanes used by other vehicles during the step.
 	 */
-	void releaseVehicleFromParking(final double timeNow) {
+	boolean isParallelStepAllowed() {
+		if (Settings.numThreadsPerWorker <= 1) {
+			return false;
+		}
 		for (int i = 0; i < trafficNetwork.vehicles.size(); i++) {
-			final Vehicle vehicle = trafficNetwork.vehicles.get(i);
-			if (vehicle.active && (vehicle.lane == null) && (timeNow >= vehicle.earliestTimeToLeaveParking)) {
-				trafficNetwork.startOneVehicleFromParking(vehicle);
+			if (trafficNetwork.vehicles.get(i).type == VehicleType.PRIORITY) {
+				return false;
 			}
 		}
+		return true;
+	}
+
+	/**
+	 * Prepare the models used by the partitions in parallel step. This is done
+	 * when the number of threads is changed.
+	 */
+	void prepareParallelStep() {
+		if (carFollowOfPartitions.length == Settings.numThreadsPerWorker) {
+			return;
+		}
+		carFollowOfPartitions = new CarFollow[Settings.numThreadsPerWorker];
+		laneChangeOfPartitions = new LaneChange[Settings.numThreadsPerWorker];
+		for (int i = 0; i < Settings.numThreadsPerWorker; i++) {
+			final VehicleUtil vehicleUtilOfPartition = new VehicleUtil();
+			vehicleUtilOfPartition.vehicleStates = trafficNetwork.vehicleStates;
+			carFollowOfPartitions[i] = new CarFollow(vehicleUtilOfPartition);
+			// Random choices are only made when decisions are committed, in the same order as serial step
+			laneChangeOfPartitions[i] = new LaneChange(vehicleUtilOfPartition, null);
+		}
+	}
+
+	/**
+	 * Divide a list of items into contiguous partitions and process the
+	 * partitions in parallel. This method returns after all the partitions are
+	 * processed.
+	 */
+	void runInPartitions(final int numItems, final PartitionedWork work) {
+		final int numPartitions = Math.min(carFollowOfPartitions.length, numItems / minVehiclesPerPartition);
+		if (numPartitions <= 1) {
+			work.run(0, 0, numItems);
+			return;
+		}
+		final ForkJoinPool threadPool = trafficNetwork.getThreadPool();
+		final ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[numPartitions];
+		for (int i = 0; i < numPartitions; i++) {
+			final int start = (int) (((long) numItems * i) / numPartitions);
+			final int end = (int) (((long) numItems * (i + 1)) / numPartitions);
+			tasks[i] = threadPool.submit(new PartitionRunnable(work, i, start, end));
+		}
+		for (final ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
 	}
 
 	synchronized void simulateOneStep(final Worker worker, boolean isNewNonPubVehiclesAllowed,
 			boolean isNewTramsAllowed, boolean isNewBusesAllowed) {
 		worker.isSimulatingOneStep = true;
 		pause();
-		final ArrayList<Vehicle> vehiclesAroundBorder = moveVehicleForward(worker.timeNow, worker.pspBorderEdges,
-				worker);
+		isParallelStep = isParallelStepAllowed();
+		if (isParallelStep) {
+			prepareParallelStep();
+		}
+		isEstimatingEdgeSpeeds = trafficNetwork.routingAlgorithm.isUsingTravelTimes();
+		// Give new routes to the vehicles re-routed in previous step
+		trafficNetwork.reRouteService.applyResults(oneStepData_allVehiclesReachedDestination);
+		moveVehicleForward(worker.timeNow, worker.pspBorderLanes, vehiclesAroundBorder, worker);
 		moveVehicleToNextLink(worker.timeNow, vehiclesAroundBorder);
 		if (!Settings.isServerBased) {
 			worker.transferVehicleDataToFellow();
 		}
-		final ArrayList<Vehicle> vehiclesNotAroundBorder = moveVehicleForward(worker.timeNow, worker.pspNonBorderEdges,
-				worker);
+		moveVehicleForward(worker.timeNow, worker.pspNonBorderLanes, vehiclesNotAroundBorder, worker);
 		moveVehicleToNextLink(worker.timeNow, vehiclesNotAroundBorder);
 		trafficNetwork.removeActiveVehicles(oneStepData_allVehiclesReachedDestination);
 		makeLaneChange(worker.timeNow);
@@ -367,7 +738,7 @@ public class Simulation {
 			trafficNetwork.lightCoordinator.updateLights();
 		}
 		trafficNetwork.updateTramStopTimers();
-		releaseVehicleFromParking(worker.timeNow);
+		trafficNetwork.releaseVehiclesFromParking(worker.timeNow);
 		blockTramAtTramStop();
 		trafficNetwork.removeActiveVehicles(oneStepData_vehiclesReachedFellowWorker);
 		trafficNetwork.createInternalVehicles(worker.numLocalRandomPrivateVehicles, worker.numLocalRandomTrams,
@@ -375,6 +746,17 @@ public class Simulation {
 				worker.timeNow);
 		trafficNetwork.repeatExternalVehicles(worker.step, worker.timeNow);
 
+		// Update travel times, which changes the best routes if routing uses them
+		if (isEstimatingEdgeSpeeds && trafficNetwork.edgeSpeedEstimator.finishStep()) {
+			if (trafficNetwork.routeCache != null) {
+				trafficNetwork.routeCache.clear();
+			}
+			trafficNetwork.shortestPathTrees.clear();
+		}
+
+		// Compute new routes before next step
+		trafficNetwork.reRouteService.submitRequests();
+
 		// Clear one-step data
 		clearOneStepData();
 
@@ -0,0 +1,116 @@
+package processor.worker;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import common.Settings;
+import traffic.TrafficNetwork;
+import traffic.road.GridCell;
+import traffic.road.RoadUtil;
+
+/**
+ * Diagnostic tool that reports the memory allocated in each simulation step
+ * once the traffic reaches a steady state. It is not a unit test and is not
+ * run by the build. A single worker simulates random private vehicles on the
+ * built-in road graph without server. The tool runs outside the simulator, so
+ * the simulation step does not measure anything itself.
+ *
+ * Arguments: number of vehicles, number of warm-up steps, number of measured
+ * steps and the maximum number of bytes allocated by the step thread in one
+ * measured step. The default values are used for missing arguments. The
+ * program exits with status 1 if any measured step exceeds the budget.
+ *
+ * Memory allocated by the threads of parallel step is not counted. Moving
+ * vehicles does not allocate memory, apart from growing arrays to new sizes.
+ * The memory still allocated in a step comes from:
+ * <ul>
+ * <li>vehicles created to replace the ones that reached destination, together
+ * with their identifiers and route legs</li>
+ * <li>routes created by the routing algorithm for new vehicles</li>
+ * <li>new routes of re-routed vehicles</li>
+ * <li>tasks for creating routes in parallel, when many vehicles are created
+ * in one step</li>
+ * </ul>
+ * The default budget allows for these at the default number of vehicles.
+ *
+ */
+public class StepAllocationCheck {
+
+	public static void main(final String[] args) {
+		final int numVehicles = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+		final int numWarmUpSteps = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+		final int numMeasuredSteps = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+		final long maxAllocatedBytesPerStep = args.length > 3 ? Long.parseLong(args[3]) : 49152;
+
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+			System.out.println("Allocated memory cannot be measured in this JVM.");
+			System.exit(1);
+		}
+		final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		final long threadId = Thread.currentThread().getId();
+
+		final Worker worker = createWorker(numVehicles);
+		for (int i = 0; i < numWarmUpSteps; i++) {
+			simulateOneStep(worker);
+		}
+
+		long totalAllocatedBytes = 0;
+		long maxAllocatedBytes = 0;
+		int numStepsOverBudget = 0;
+		for (int i = 0; i < numMeasuredSteps; i++) {
+			final long allocatedBytesBeforeStep = threadMXBean.getThreadAllocatedBytes(threadId);
+			simulateOneStep(worker);
+			final long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytesBeforeStep;
+			totalAllocatedBytes += allocatedBytes;
+			maxAllocatedBytes = Math.max(maxAllocatedBytes, allocatedBytes);
+			if (allocatedBytes > maxAllocatedBytesPerStep) {
+				numStepsOverBudget++;
+				System.out.println("Step " + worker.step + " allocated " + allocatedBytes + " bytes.");
+			}
+		}
+
+		System.out.println("Average bytes allocated per step: " + (totalAllocatedBytes / Math.max(1, numMeasuredSteps)));
+		System.out.println("Maximum bytes allocated in a step: " + maxAllocatedBytes);
+		if (numStepsOverBudget > 0) {
+			System.out.println(numStepsOverBudget + " steps allocated more than " + maxAllocatedBytesPerStep
+					+ " bytes.");
+			System.exit(1);
+		}
+		System.out.println("All steps are within the budget of " + maxAllocatedBytesPerStep + " bytes.");
+		System.exit(0);
+	}
+
+	/**
+	 * Create a worker that simulates the whole built-in road graph.
+	 */
+	static Worker createWorker(final int numVehicles) {
+		Settings.isVisualize = false;
+		Settings.numWorkers = 1;
+		Settings.roadGraph = RoadUtil.importBuiltinRoadGraphFile();
+		final TrafficNetwork trafficNetwork = new TrafficNetwork();
+		final ArrayList<GridCell> cells = new ArrayList<>();
+		for (final GridCell[] row : trafficNetwork.grid) {
+			for (final GridCell cell : row) {
+				cells.add(cell);
+			}
+		}
+
+		final Worker worker = new Worker();
+		worker.name = "StepAllocationCheck";
+		worker.trafficNetwork = trafficNetwork;
+		worker.workarea = new Workarea(worker.name, cells);
+		worker.simulation = new Simulation(trafficNetwork, worker.connectedFellows, worker.workarea);
+		worker.divideLaneSetForServerlessSim();
+		trafficNetwork.buildEnvironment(cells, worker.name, 0);
+		worker.resetTraffic();
+		worker.numLocalRandomPrivateVehicles = numVehicles;
+		return worker;
+	}
+
+	static void simulateOneStep(final Worker worker) {
+		worker.timeNow = worker.step / Settings.numStepsPerSecond;
+		worker.simulation.simulateOneStep(worker, true, true, true);
+		worker.step++;
+	}
+}
@@ -15,6 +15,7 @@ import common.SysUtil;
 import processor.communication.IncomingConnectionBuilder;
 import processor.communication.MessageHandler;
 import processor.communication.MessageSender;
+import processor.communication.message.MessageCodec;
 import processor.communication.message.Message_SW_BlockLane;
 import processor.communication.message.Message_SW_ChangeSpeed;
 import processor.communication.message.Message_SW_KillWorker;
@@ -39,6 +40,7 @@ import processor.communication.message.SerializableInt;
 import processor.communication.message.SerializableLaneIndex;
 import processor.communication.message.SerializableVehicle;
 import processor.communication.message.SerializableWorkerMetadata;
+import processor.communication.message.TrafficReportEncoder;
 import processor.communication.message.Serializable_GPS_Rectangle;
 import processor.server.DataOutputScope;
 import traffic.TrafficNetwork;
@@ -46,6 +48,7 @@ import traffic.light.LightUtil;
 import traffic.road.Edge;
 import traffic.road.GridCell;
 import traffic.road.Lane;
+import traffic.road.LaneSet;
 import traffic.road.Node;
 import traffic.road.RoadUtil;
 import traffic.routing.RouteUtil;
@@ -118,14 +121,24 @@ public class Worker implements MessageHandler, Runnable {
 	boolean isSimulatingOneStep;
 	ArrayList<Edge> pspBorderEdges = new ArrayList<>();// For PSP (server-less)
 	ArrayList<Edge> pspNonBorderEdges = new ArrayList<>();// For PSP (server-less)
+	LaneSet pspBorderLanes;// Lanes on pspBorderEdges
+	LaneSet pspNonBorderLanes;// Lanes on pspNonBorderEdges
 	Thread singleWorkerServerlessThread = new Thread();// Used when this worker is the only worker in server-less mode
 	int numVehicleCreatedSinceLastSetupProgressReport = 0;
 	int numLocalRandomPrivateVehicles = 0;
 	int numLocalRandomTrams = 0;
 	int numLocalRandomBuses = 0;
+	TrafficReportEncoder trafficReportEncoder = new TrafficReportEncoder();
 
 	void changeLaneBlock(int laneIndex, boolean isBlocked) {
-		trafficNetwork.lanes.get(laneIndex).isBlocked = isBlocked;
+		final Lane lane = trafficNetwork.lanes.get(laneIndex);
+		lane.isBlocked = isBlocked;
+		trafficNetwork.routingGraph.updateAccess(lane.edge);
+		// Routes found by searches that started before this point are not cached
+		if (trafficNetwork.routeCache != null) {
+			trafficNetwork.routeCache.clear();
+		}
+		trafficNetwork.shortestPathTrees.clear();
 	}
 
 	void buildThreadForSingleWorkerServerlessSimulation() {
@@ -164,9 +177,10 @@ public class Worker implements MessageHandler, Runnable {
 	void sendTrafficReportInServerlessMode() {
 		if ((step + 1) % Settings.trafficReportStepGapInServerlessMode == 0) {
 			senderForServer
-					.send(new Message_WS_TrafficReport(name, trafficNetwork.vehicles, trafficNetwork.lightCoordinator,
-							trafficNetwork.newVehiclesSinceLastReport, step, trafficNetwork.numInternalNonPublicVehicle,
-							trafficNetwork.numInternalTram, trafficNetwork.numInternalBus));
+					.send(new Message_WS_TrafficReport(name, trafficNetwork.vehicles, trafficNetwork.vehicleStates,
+							trafficNetwork.lightCoordinator, trafficNetwork.newVehiclesSinceLastReport, step,
+							trafficNetwork.numInternalNonPublicVehicle, trafficNetwork.numInternalTram,
+							trafficNetwork.numInternalBus, trafficNetwork.routeCache, trafficReportEncoder));
 			trafficNetwork.clearReportedData();
 		}
 	}
@@ -175,7 +189,7 @@ public class Worker implements MessageHandler, Runnable {
 		final Vehicle vehicle = new Vehicle();
 		vehicle.type = VehicleType.getVehicleTypeFromName(serializableVehicle.type);
 		vehicle.length = vehicle.type.length;
-		vehicle.routeLegs = RouteUtil.parseReceivedRoute(serializableVehicle.routeLegs, trafficNetwork.edges);
+		vehicle.setRouteLegs(RouteUtil.parseReceivedRoute(serializableVehicle.routeLegs, trafficNetwork.edges));
 		vehicle.indexLegOnRoute = serializableVehicle.indexRouteLeg;
 		vehicle.lane = trafficNetwork.lanes.get(serializableVehicle.laneIndex);
 		vehicle.headPosition = serializableVehicle.headPosition;
@@ -210,9 +224,18 @@ public class Worker implements MessageHandler, Runnable {
 			}
 		}
 		pspBorderEdges.addAll(edgeSet);
+		pspBorderLanes = new LaneSet(trafficNetwork.lanes.size());
+		pspNonBorderLanes = new LaneSet(trafficNetwork.lanes.size());
 		for (final Edge e : trafficNetwork.edges) {
 			if (!edgeSet.contains(e)) {
 				pspNonBorderEdges.add(e);
+				for (final Lane lane : e.lanes) {
+					pspNonBorderLanes.add(lane);
+				}
+			} else {
+				for (final Lane lane : e.lanes) {
+					pspBorderLanes.add(lane);
+				}
 			}
 		}
 	}
@@ -314,6 +337,8 @@ public class Worker implements MessageHandler, Runnable {
 							.send(new Message_WS_Serverless_Complete(name, step, trafficNetwork.vehicles.size()));
 					resetTraffic();
 				} else if (!isPausingServerlessSim) {
+					// Let server and fellow workers receive messages of this step before simulating the next step
+					flushSenders();
 					step++;
 					timeNow = step / Settings.numStepsPerSecond;
 					simulation.simulateOneStep(this, true, true, true);
@@ -373,8 +398,47 @@ public class Worker implements MessageHandler, Runnable {
 		}
 	}
 
+	/**
+	 * Keep the messages sent by the current thread until the senders are
+	 * flushed. Messages to the same receiver in a phase of a step are then
+	 * written together.
+	 */
+	void startBatchOfSenders() {
+		senderForServer.startBatch();
+		for (final Fellow fellow : connectedFellows) {
+			fellow.startBatch();
+		}
+	}
+
+	/**
+	 * Write the messages kept by the senders. This is done at the end of each
+	 * phase, e.g., after sending traffic to fellow workers.
+	 */
+	void flushSenders() {
+		senderForServer.flush();
+		for (final Fellow fellow : connectedFellows) {
+			fellow.flush();
+		}
+	}
+
+	void endBatchOfSenders() {
+		senderForServer.endBatch();
+		for (final Fellow fellow : connectedFellows) {
+			fellow.endBatch();
+		}
+	}
+
 	@Override
 	public synchronized void processReceivedMsg(final Object message) {
+		startBatchOfSenders();
+		try {
+			processMessage(message);
+		} finally {
+			endBatchOfSenders();
+		}
+	}
+
+	void processMessage(final Object message) {
 		if (message instanceof Message_SW_Setup) {
 			final Message_SW_Setup messageToProcess = (Message_SW_Setup) message;
 			processReceivedSimulationConfiguration(messageToProcess);
@@ -445,9 +509,10 @@ public class Worker implements MessageHandler, Runnable {
 			simulation.simulateOneStep(this, messageToProcess.isNewNonPubVehiclesAllowed,
 					messageToProcess.isNewTramsAllowed, messageToProcess.isNewBusesAllowed);
 			senderForServer
-					.send(new Message_WS_TrafficReport(name, trafficNetwork.vehicles, trafficNetwork.lightCoordinator,
-							trafficNetwork.newVehiclesSinceLastReport, step, trafficNetwork.numInternalNonPublicVehicle,
-							trafficNetwork.numInternalTram, trafficNetwork.numInternalBus));
+					.send(new Message_WS_TrafficReport(name, trafficNetwork.vehicles, trafficNetwork.vehicleStates,
+							trafficNetwork.lightCoordinator, trafficNetwork.newVehiclesSinceLastReport, step,
+							trafficNetwork.numInternalNonPublicVehicle, trafficNetwork.numInternalTram,
+							trafficNetwork.numInternalBus, trafficNetwork.routeCache, trafficReportEncoder));
 			trafficNetwork.clearReportedData();
 		} else if (message instanceof Message_SW_Serverless_Start) {
 			final Message_SW_Serverless_Start messageToProcess = (Message_SW_Serverless_Start) message;
@@ -527,6 +592,17 @@ public class Worker implements MessageHandler, Runnable {
 		Settings.isAllowTramRule = received.isAllowTramRule;
 		Settings.isDriveOnLeft = received.isDriveOnLeft;
 		Settings.isUseAnyLaneToTurn=received.isUseAnyLaneToTurn;
+		Settings.numThreadsPerWorker = received.numThreadsPerWorker;
+		Settings.randomSeed = received.randomSeed;
+		Settings.numLandmarksInAltAStar = received.numLandmarksInAltAStar;
+		Settings.stretchInAltAStar = received.stretchInAltAStar;
+		Settings.routeCacheSize = received.routeCacheSize;
+		Settings.maxNumReRoutesPerStep = received.maxNumReRoutesPerStep;
+		Settings.edgeSpeedSmoothingFactor = received.edgeSpeedSmoothingFactor;
+		Settings.numStepsPerTravelTimeSnapshot = received.numStepsPerTravelTimeSnapshot;
+		Settings.numStepsToKeepShortestPathTree = received.numStepsToKeepShortestPathTree;
+		Settings.messageCodec = MessageCodec.Type.valueOf(received.messageCodec);
+		Settings.numTrafficReportsPerKeyframe = received.numTrafficReportsPerKeyframe;
 
 		if (received.isNewEnvironment) {
 			if (received.roadGraph.equals("builtin")) {
@@ -572,6 +648,14 @@ public class Worker implements MessageHandler, Runnable {
 		}
 
 		trafficNetwork.resetTraffic();
+		trafficReportEncoder.reset();
+
+		// Start the random numbers over, so the simulation can be repeated
+		if (Settings.randomSeed != 0) {
+			final long seed = (Settings.randomSeed * 31) + name.hashCode();
+			trafficNetwork.setRandomSeed(seed);
+			simulation.laneChange.setRandomSeed(seed + 1);
+		}
 	}
 
 	@Override
@@ -609,6 +693,10 @@ public class Worker implements MessageHandler, Runnable {
 			updateFellowState(fellowWorker.name, FellowState.SHARING_DATA_SENT);
 			fellowWorker.vehiclesToCreateAtBorder.clear();
 		}
+		// Fellow workers can proceed after receiving the traffic
+		for (final Fellow fellowWorker : connectedFellows) {
+			fellowWorker.flush();
+		}
 	}
 
 	
@@ -8,7 +8,11 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import common.Settings;
 import processor.communication.message.SerializableExternalVehicle;
@@ -18,19 +22,30 @@ import traffic.light.LightCoordinator;
 import traffic.road.Edge;
 import traffic.road.GridCell;
 import traffic.road.Lane;
+import traffic.road.LaneVehicleList;
 import traffic.road.Node;
 import traffic.road.RoadNetwork;
 import traffic.road.RoadType;
 import traffic.road.RoadUtil;
+import traffic.routing.AltAStar;
+import traffic.routing.BidirectionalDijkstra;
+import traffic.routing.CongestionAwareDijkstra;
+import traffic.routing.ContractionHierarchies;
 import traffic.routing.Dijkstra;
+import traffic.routing.EdgeSpeedEstimator;
 import traffic.routing.RandomAStar;
+import traffic.routing.ReRouteService;
 import traffic.routing.ReferenceBasedSearch;
+import traffic.routing.RouteCache;
 import traffic.routing.RouteLeg;
 import traffic.routing.Routing;
+import traffic.routing.RoutingGraph;
+import traffic.routing.ShortestPathTrees;
 import traffic.routing.Simple;
 import traffic.vehicle.DriverProfile;
 import traffic.vehicle.SlowdownFactor;
 import traffic.vehicle.Vehicle;
+import traffic.vehicle.VehicleStateStore;
 import traffic.vehicle.VehicleType;
 import traffic.vehicle.VehicleUtil;
 
@@ -73,21 +88,55 @@ public class TrafficNetwork extends RoadNetwork {
 	}
 
 	/**
-	 * Comparator of vehicles based on their positions in a lane. The vehicle
-	 * closest to the end of the lane, will be the first element in the sorted
-	 * list.
+	 * A planned attempt to move a parked vehicle onto road.
 	 *
 	 */
-	public class VehiclePositionComparator implements Comparator<Vehicle> {
+	static class ParkingRelease {
+		Vehicle vehicle;
+		double time;
+		/**
+		 * Order of adding this release to queue. Releases at the same time are
+		 * processed in this order.
+		 */
+		long order;
+
+		ParkingRelease(final Vehicle vehicle, final double time, final long order) {
+			this.vehicle = vehicle;
+			this.time = time;
+			this.order = order;
+		}
+	}
+
+	/**
+	 * Comparator of parking releases based on their time.
+	 *
+	 */
+	static class ParkingReleaseComparator implements Comparator<ParkingRelease> {
 
 		@Override
-		public int compare(final Vehicle v1, final Vehicle v2) {
-			return v1.headPosition > v2.headPosition ? -1
-					: v1.headPosition == v2.headPosition ? 0 : 1;
+		public int compare(final ParkingRelease r1, final ParkingRelease r2) {
+			if (r1.time != r2.time) {
+				return r1.time < r2.time ? -1 : 1;
+			}
+			return r1.order < r2.order ? -1 : r1.order == r2.order ? 0 : 1;
 		}
 	}
 
+	/**
+	 * Maximum gap in seconds between two attempts of moving a parked vehicle
+	 * onto road when there is no space on road.
+	 */
+	static final double maxGapBetweenAttemptsToLeaveParking = 2;
+
+	/**
+	 * Vehicles in the network. The index of a vehicle in this list is the
+	 * slot of the vehicle.
+	 */
 	public ArrayList<Vehicle> vehicles = new ArrayList<>();
+	/**
+	 * State of the vehicles in {@link #vehicles}, indexed by slot.
+	 */
+	public VehicleStateStore vehicleStates = new VehicleStateStore();
 
 	// For report data
 	public ArrayList<Vehicle> newVehiclesSinceLastReport = new ArrayList<>();
@@ -100,7 +149,38 @@ public class TrafficNetwork extends RoadNetwork {
 	ArrayList<Edge> internalBusEndEdges = new ArrayList<>();
 	ArrayList<Edge> internalTramStartEdges = new ArrayList<>();
 	ArrayList<Edge> internalTramEndEdges = new ArrayList<>();
+	/**
+	 * Parked vehicles ordered by the time when they can leave parking.
+	 */
+	PriorityQueue<ParkingRelease> parkingReleases = new PriorityQueue<>(1000, new ParkingReleaseComparator());
+	long numParkingReleasesAllTime = 0;
 	public Routing routingAlgorithm;
+	/**
+	 * Road graph shared by routing algorithms.
+	 */
+	public RoutingGraph routingGraph;
+	/**
+	 * Current speeds on edges estimated from vehicle speeds.
+	 */
+	public EdgeSpeedEstimator edgeSpeedEstimator;
+	/**
+	 * Shortest path trees from which routes of internal vehicles are taken.
+	 */
+	public ShortestPathTrees shortestPathTrees;
+	/**
+	 * Recent routes of internal vehicles and re-routed vehicles.
+	 */
+	public RouteCache routeCache;
+	/**
+	 * Computes new routes for re-routed vehicles in the background.
+	 */
+	public ReRouteService reRouteService = new ReRouteService(this);
+	/**
+	 * Threads of this worker that simulate steps in parallel, create routes
+	 * in parallel and re-route vehicles in the background.
+	 */
+	ForkJoinPool threadPool = null;
+	final int minRoutesPerRoutingTask = 64;
 	Random random = new Random();
 	int numInternalVehicleAllTime = 0;
 	public int numInternalNonPublicVehicle = 0;
@@ -110,8 +190,18 @@ public class TrafficNetwork extends RoadNetwork {
 	ArrayList<GridCell> workareaCells;
 	String internalVehiclePrefix = "";
 	VehicleUtil vehicleUtil = new VehicleUtil();
-	public VehiclePositionComparator vehiclePositionComparator = new VehiclePositionComparator();
 	double timeLastPublicVehicleCreated = 0;
+	static final DriverProfile[] driverProfiles = DriverProfile.values();
+	/*
+	 * Temporary data that is reused when creating vehicles, so creating a few
+	 * vehicles in a step does not create new arrays and lists.
+	 */
+	VehicleType[] typesOfNewVehicles = new VehicleType[0];
+	Edge[] startEdgesOfNewVehicles = new Edge[0];
+	Edge[] endEdgesOfNewVehicles = new Edge[0];
+	ArrayList<ArrayList<RouteLeg>> routesOfNewVehicles = new ArrayList<>();
+	double[] gapFronts = new double[0];
+	double[] gapBacks = new double[0];
 	ArrayList<String> internalTramRefInSdWindow = new ArrayList<>();
 
 	HashMap<String, ArrayList<Edge>> internalTramStartEdgesInSourceWindow = new HashMap<>();
@@ -129,6 +219,9 @@ public class TrafficNetwork extends RoadNetwork {
 		super();
 		identifyInternalTramStopEdges();
 		addTramStopsToParallelNonTramEdges();
+		routingGraph = new RoutingGraph(this);
+		edgeSpeedEstimator = new EdgeSpeedEstimator(routingGraph);
+		shortestPathTrees = new ShortestPathTrees(this);
 	}
 
 	public void clearReportedData() {
@@ -162,7 +255,7 @@ public class TrafficNetwork extends RoadNetwork {
 		// Length of vehicle
 		vehicle.length = type.length;
 		// Legs of route
-		vehicle.routeLegs = routeLegs;
+		vehicle.setRouteLegs(routeLegs);
 		// Driver profile
 		vehicle.driverProfile = dP;
 		// Set as active
@@ -181,13 +274,13 @@ public class TrafficNetwork extends RoadNetwork {
 			// Assign vehicle ID
 			vehicle.id = idPrefix + Long.toString(numInternalVehicleAllTime);
 			// Add vehicle to system
-			vehicles.add(vehicle);
+			addToVehicleList(vehicle);
 
 			parkOneVehicle(vehicle, true, timeRouteStart);
 		} else {
 			// Add external vehicle to system
 			vehicle.id = externalId;
-			vehicles.add(vehicle);
+			addToVehicleList(vehicle);
 			parkOneVehicle(vehicle, true, timeRouteStart);
 		}
 
@@ -195,6 +288,27 @@ public class TrafficNetwork extends RoadNetwork {
 		newVehiclesSinceLastReport.add(vehicle);
 	}
 
+	/**
+	 * Add a vehicle at the end of the vehicle list. The index of the vehicle
+	 * in the list becomes its slot.
+	 */
+	void addToVehicleList(final Vehicle vehicle) {
+		vehicle.slot = vehicles.size();
+		vehicles.add(vehicle);
+		vehicleStates.set(vehicle.slot, vehicle);
+	}
+
+	/**
+	 * Copy the current state of a vehicle to the vehicle state store. This
+	 * must be called after the lane, position or route leg of the vehicle is
+	 * changed.
+	 */
+	public void updateVehicleState(final Vehicle vehicle) {
+		if (vehicle.slot >= 0) {
+			vehicleStates.set(vehicle.slot, vehicle);
+		}
+	}
+
 	/**
 	 * Add an existing vehicle object to traffic network. The vehicle object is
 	 * transferred from a neighbor worker.
@@ -202,7 +316,7 @@ public class TrafficNetwork extends RoadNetwork {
 	public void addOneTransferredVehicle(final Vehicle vehicle,
 			final double timeNow) {
 		vehicle.active = true;
-		vehicles.add(vehicle);
+		addToVehicleList(vehicle);
 		vehicle.lane.vehicles.add(vehicle);
 		if (!vehicle.isExternal) {
 			if (vehicle.type == VehicleType.TRAM) {
@@ -282,6 +396,9 @@ public class TrafficNetwork extends RoadNetwork {
 		identifyInternalVehicleRouteStartEndEdges();
 		identifyReferencesOfAllPublicTransportTypesInSourceDestinationWindow();
 		computeAccumulatedDriverProfileDistribution();
+		routingGraph.updateAccess();
+		routeCache = new RouteCache(Settings.routeCacheSize, edges.size());
+		shortestPathTrees.clear();
 
 		if (Settings.routingAlgorithm == Routing.Algorithm.DIJKSTRA) {
 			routingAlgorithm = new Dijkstra(this);
@@ -289,6 +406,17 @@ public class TrafficNetwork extends RoadNetwork {
 			routingAlgorithm = new RandomAStar(this);
 		} else if (Settings.routingAlgorithm == Routing.Algorithm.SIMPLE) {
 			routingAlgorithm = new Simple(this);
+		} else if (Settings.routingAlgorithm == Routing.Algorithm.CONTRACTION_HIERARCHIES) {
+			// Keep the preprocessed hierarchies while the road network is the same
+			if (!(routingAlgorithm instanceof ContractionHierarchies)) {
+				routingAlgorithm = new ContractionHierarchies(this);
+			}
+		} else if (Settings.routingAlgorithm == Routing.Algorithm.ALT_A_STAR) {
+			routingAlgorithm = new AltAStar(this);
+		} else if (Settings.routingAlgorithm == Routing.Algorithm.BIDIRECTIONAL_DIJKSTRA) {
+			routingAlgorithm = new BidirectionalDijkstra(this);
+		} else if (Settings.routingAlgorithm == Routing.Algorithm.CONGESTION_AWARE) {
+			routingAlgorithm = new CongestionAwareDijkstra(this);
 		}
 
 	}
@@ -342,23 +470,45 @@ public class TrafficNetwork extends RoadNetwork {
 		if (isNewNonPubVehiclesAllowed) {
 			final int numVehiclesNeeded = numLocalRandomPrivateVehicles
 					- numInternalNonPublicVehicle;
+			if (numVehiclesNeeded <= 0) {
+				return;
+			}
+			// Choose vehicle types and the ends of their routes
+			if (typesOfNewVehicles.length < numVehiclesNeeded) {
+				typesOfNewVehicles = new VehicleType[numVehiclesNeeded];
+				startEdgesOfNewVehicles = new Edge[numVehiclesNeeded];
+				endEdgesOfNewVehicles = new Edge[numVehiclesNeeded];
+			}
+			final VehicleType[] types = typesOfNewVehicles;
+			final Edge[] startEdges = startEdgesOfNewVehicles;
+			final Edge[] endEdges = endEdgesOfNewVehicles;
 			for (int i = 0; i < numVehiclesNeeded; i++) {
 				final double typeDecider = random.nextDouble();
-				VehicleType type = null;
 				if (typeDecider < 0.05) {
-					type = VehicleType.BIKE;
+					types[i] = VehicleType.BIKE;
 				} else if ((0.05 <= typeDecider) && (typeDecider < 0.1)) {
-					type = VehicleType.TRUCK;
+					types[i] = VehicleType.TRUCK;
 				} else {
-					type = VehicleType.CAR;
+					types[i] = VehicleType.CAR;
 				}
-				ArrayList<RouteLeg> route = createOneRandomInternalRoute(type);
+				startEdges[i] = internalNonPublicVehicleStartEdges.get(random
+						.nextInt(internalNonPublicVehicleStartEdges.size()));
+				endEdges[i] = internalNonPublicVehicleEndEdges.get(random
+						.nextInt(internalNonPublicVehicleEndEdges.size()));
+			}
+			// Create routes, in parallel if there are many
+			final ArrayList<ArrayList<RouteLeg>> routes = createInternalRoutes(
+					numVehiclesNeeded, types, startEdges, endEdges, timeNow);
+			// Add vehicles one by one
+			for (int i = 0; i < numVehiclesNeeded; i++) {
+				final ArrayList<RouteLeg> route = routes.get(i);
 				if (route != null) {
-					addNewVehicle(type, false, false, route,
+					addNewVehicle(types[i], false, false, route,
 							internalVehiclePrefix, timeNow, "",
 							getRandomDriverProfile());
 				}
 			}
+			routes.clear();
 		}
 	}
 
@@ -462,20 +612,19 @@ public class TrafficNetwork extends RoadNetwork {
 	
 
 	/**
-	 * Generate a route.
-	 *
-	 * @param workarea
-	 * @param strategy
+	 * Generate a route. The route is taken from a shortest path tree if
+	 * shortest path trees can be used.
 	 */
-	ArrayList<RouteLeg> createOneRandomInternalRoute(final VehicleType type) {
-		final Edge edgeStart = internalNonPublicVehicleStartEdges.get(random
-				.nextInt(internalNonPublicVehicleStartEdges.size()));
-
-		final Edge edgeEnd = internalNonPublicVehicleEndEdges.get(random
-				.nextInt(internalNonPublicVehicleEndEdges.size()));
-
-		final ArrayList<RouteLeg> route = routingAlgorithm.createCompleteRoute(
-				edgeStart, edgeEnd, type);
+	ArrayList<RouteLeg> createOneInternalRoute(final VehicleType type,
+			final Edge edgeStart, final Edge edgeEnd, final double timeNow) {
+		ArrayList<RouteLeg> route;
+		if (shortestPathTrees.isUsable()) {
+			route = shortestPathTrees.createRoute(edgeStart, edgeEnd, type,
+					routingAlgorithm.getTreeWeights(), timeNow);
+		} else {
+			route = routingAlgorithm.createCachedRoute(edgeStart, edgeEnd,
+					type);
+		}
 
 		if ((route == null) || (route.size() == 0)) {
 			return null;
@@ -484,6 +633,73 @@ public class TrafficNetwork extends RoadNetwork {
 		}
 	}
 
+	/**
+	 * Generate the routes of a batch of vehicles. Large batches, such as the
+	 * initial vehicles created during setup, are divided between multiple
+	 * threads if the routing algorithm allows. The routes are the same as
+	 * the ones created by a single thread.
+	 *
+	 * @return The routes, in the order of the given vehicles. A route is null
+	 *         if it cannot be created. The list is reused by the next call.
+	 */
+	ArrayList<ArrayList<RouteLeg>> createInternalRoutes(final int numRoutes,
+			final VehicleType[] types, final Edge[] startEdges,
+			final Edge[] endEdges, final double timeNow) {
+		final ArrayList<ArrayList<RouteLeg>> routes = routesOfNewVehicles;
+		routes.clear();
+		for (int i = 0; i < numRoutes; i++) {
+			routes.add(null);
+		}
+		final int numTasks = Math.min(Settings.numThreadsPerWorker,
+				numRoutes / minRoutesPerRoutingTask);
+		if ((numTasks <= 1) || !routingAlgorithm.isParallelRoutingAllowed()) {
+			for (int i = 0; i < numRoutes; i++) {
+				routes.set(i, createOneInternalRoute(types[i], startEdges[i],
+						endEdges[i], timeNow));
+			}
+			return routes;
+		}
+
+		// Only large batches get here, so the tasks are not reused
+		final ForkJoinPool threadPool = getThreadPool();
+		// Tasks take the next route to create until all routes are created
+		final AtomicInteger nextRoute = new AtomicInteger(0);
+		final ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[numTasks];
+		for (int t = 0; t < numTasks; t++) {
+			tasks[t] = threadPool.submit(new Runnable() {
+				@Override
+				public void run() {
+					int i;
+					while ((i = nextRoute.getAndIncrement()) < numRoutes) {
+						routes.set(i, createOneInternalRoute(types[i],
+								startEdges[i], endEdges[i], timeNow));
+					}
+				}
+			});
+		}
+		for (final ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+		return routes;
+	}
+
+	/**
+	 * Get the thread pool of this worker. A new pool replaces the existing one
+	 * when the number of threads is changed. Tasks already submitted to the
+	 * existing pool are still completed.
+	 */
+	public synchronized ForkJoinPool getThreadPool() {
+		final int numThreads = Math.max(1, Settings.numThreadsPerWorker);
+		if ((threadPool != null) && (threadPool.getParallelism() == numThreads)) {
+			return threadPool;
+		}
+		if (threadPool != null) {
+			threadPool.shutdown();
+		}
+		threadPool = new ForkJoinPool(numThreads);
+		return threadPool;
+	}
+
 	ArrayList<RouteLeg> createOneRouteFromSerializedData(
 			final ArrayList<SerializableRouteLeg> serializedData) {
 		final ArrayList<RouteLeg> route = new ArrayList<>(1000);
@@ -497,9 +713,9 @@ public class TrafficNetwork extends RoadNetwork {
 
 	DriverProfile getRandomDriverProfile() {
 		final double r = random.nextDouble();
-		for (int i = 0; i < DriverProfile.values().length; i++) {
+		for (int i = 0; i < driverProfiles.length; i++) {
 			if (r < driverProfilePercAccumulated.get(i)) {
-				return DriverProfile.values()[i];
+				return driverProfiles[i];
 			}
 		}
 		return DriverProfile.NORMAL;
@@ -551,14 +767,22 @@ public class TrafficNetwork extends RoadNetwork {
 		if (headPosSpaceFront <= headPosSpaceBack)
 			return -1;
 
-		final ArrayList<double[]> gaps = new ArrayList<>();
-		if (currentEdge.lanes.get(0).vehicles.size() > 0) {
+		// Front and back of the gaps between vehicles
+		final LaneVehicleList vehiclesInLane = currentEdge.lanes.get(0).vehicles;
+		if (gapFronts.length <= vehiclesInLane.size()) {
+			gapFronts = new double[vehiclesInLane.size() + 1];
+			gapBacks = new double[vehiclesInLane.size() + 1];
+		}
+		int numGaps = 0;
+		if (vehiclesInLane.size() > 0) {
 
 			double gapFront = headPosSpaceFront;
-			for (Vehicle vehicleToCheck : currentEdge.lanes.get(0).vehicles) {
+			for (int i = 0; i < vehiclesInLane.size(); i++) {
+				final Vehicle vehicleToCheck = vehiclesInLane.get(i);
 				if (gapFront - vehicle.length > vehicleToCheck.headPosition) {
-					gaps.add(new double[] { gapFront,
-							vehicleToCheck.headPosition + vehicle.length });
+					gapFronts[numGaps] = gapFront;
+					gapBacks[numGaps] = vehicleToCheck.headPosition + vehicle.length;
+					numGaps++;
 				}
 				gapFront = vehicleToCheck.headPosition - vehicleToCheck.length;
 				if (gapFront < headPosSpaceBack) {
@@ -566,16 +790,18 @@ public class TrafficNetwork extends RoadNetwork {
 				}
 			}
 		} else {
-			gaps.add(new double[] { headPosSpaceFront, headPosSpaceBack });
+			gapFronts[numGaps] = headPosSpaceFront;
+			gapBacks[numGaps] = headPosSpaceBack;
+			numGaps++;
 		}
 
-		if (gaps.size() == 0) {
+		if (numGaps == 0) {
 			return -1;
 		} else {
 			// Pick a random position within a random gap
-			final double[] gap = gaps.get(random.nextInt(gaps.size()));
-			final double pos = gap[0]
-					- (random.nextDouble() * (gap[0] - gap[1]));
+			final int gap = random.nextInt(numGaps);
+			final double pos = gapFronts[gap]
+					- (random.nextDouble() * (gapFronts[gap] - gapBacks[gap]));
 			return pos;
 		}
 	}
@@ -753,8 +979,8 @@ public class TrafficNetwork extends RoadNetwork {
 			final boolean isNewVehicle, final double timeNow) {
 		vehicle.speed = 0;
 		vehicle.acceleration = 0;
-		vehicle.routeLegs.get(vehicle.indexLegOnRoute).edge.parkedVehicles
-				.add(vehicle);
+		vehicle.routeLegs.get(vehicle.indexLegOnRoute).edge
+				.addParkedVehicle(vehicle);
 		if (isNewVehicle) {
 			vehicle.earliestTimeToLeaveParking = vehicle.timeRouteStart
 					+ vehicle.routeLegs.get(0).stopover;
@@ -762,10 +988,42 @@ public class TrafficNetwork extends RoadNetwork {
 			vehicle.earliestTimeToLeaveParking = timeNow
 					+ vehicle.routeLegs.get(vehicle.indexLegOnRoute).stopover;
 		}
+		vehicle.numFailedAttemptsToLeaveParking = 0;
+		addParkingRelease(vehicle, vehicle.earliestTimeToLeaveParking);
 		if (vehicle.lane != null) {
 			vehicle.lane.vehicles.remove(vehicle);
 			vehicle.lane = null;
 		}
+		updateVehicleState(vehicle);
+	}
+
+	void addParkingRelease(final Vehicle vehicle, final double time) {
+		parkingReleases.add(new ParkingRelease(vehicle, time, numParkingReleasesAllTime));
+		numParkingReleasesAllTime++;
+	}
+
+	/**
+	 * Try to move the parked vehicles onto roads if the current time has passed
+	 * their earliest start time. A vehicle that cannot start due to lack of
+	 * space on road will try again later. The gap before the next attempt
+	 * doubles after each failed attempt, up to a maximum.
+	 */
+	public void releaseVehiclesFromParking(final double timeNow) {
+		while (!parkingReleases.isEmpty() && (parkingReleases.peek().time <= timeNow)) {
+			final Vehicle vehicle = parkingReleases.poll().vehicle;
+			// Ignore vehicles that have been removed
+			if (!vehicle.active || (vehicle.lane != null) || (vehicle.slot < 0)) {
+				continue;
+			}
+			if (startOneVehicleFromParking(vehicle)) {
+				vehicle.numFailedAttemptsToLeaveParking = 0;
+			} else {
+				final double gap = Math.min(maxGapBetweenAttemptsToLeaveParking,
+						Math.scalb(1 / Settings.numStepsPerSecond, vehicle.numFailedAttemptsToLeaveParking));
+				vehicle.numFailedAttemptsToLeaveParking++;
+				addParkingRelease(vehicle, timeNow + gap);
+			}
+		}
 	}
 
 	/**
@@ -789,9 +1047,18 @@ public class TrafficNetwork extends RoadNetwork {
 				v.lane.vehicles.remove(v);
 			}
 			/*
-			 * Remove vehicle from the traffic network on this worker
+			 * Remove vehicle from the traffic network on this worker. The last
+			 * vehicle in the list takes the slot of the removed vehicle.
 			 */
-			vehicles.remove(v);
+			if (v.slot >= 0) {
+				final Vehicle lastVehicle = vehicles.remove(vehicles.size() - 1);
+				if (lastVehicle != v) {
+					vehicles.set(v.slot, lastVehicle);
+					lastVehicle.slot = v.slot;
+					vehicleStates.set(lastVehicle.slot, lastVehicle);
+				}
+				v.slot = -1;
+			}
 			/*
 			 * Update count of internally generated vehicles
 			 */
@@ -834,9 +1101,24 @@ public class TrafficNetwork extends RoadNetwork {
 		}
 	}
 
+	/**
+	 * Set the seed of the random numbers used for creating vehicles and
+	 * routes.
+	 */
+	public void setRandomSeed(final long seed) {
+		random.setSeed(seed);
+		routingAlgorithm.setRandomSeed(seed + 1);
+	}
+
 	public void resetTraffic() {
 		// Clear vehicles from network
+		reRouteService.clear();
+		edgeSpeedEstimator.reset();
+		for (final Vehicle vehicle : vehicles) {
+			vehicle.slot = -1;
+		}
 		vehicles.clear();
+		parkingReleases.clear();
 		externalVehicleRepeatPerStep.clear();
 		// Reset temp values for lanes
 		for (final Lane lane : lanes) {
@@ -846,9 +1128,17 @@ public class TrafficNetwork extends RoadNetwork {
 			lane.endPositionOfLatestVehicleLeftThisWorker = 1000000000;
 			lane.isPriority = false;
 		}
+		routingGraph.updateAccess();
+		if (routeCache != null) {
+			routeCache.clear();
+		}
+		shortestPathTrees.clear();
 
 		// Clear parked vehicles from edges
 		for (final Edge edge : edges) {
+			for (final Vehicle vehicle : edge.parkedVehicles) {
+				vehicle.indexInParkedVehicles = -1;
+			}
 			edge.parkedVehicles.clear();
 		}
 
@@ -870,12 +1160,12 @@ public class TrafficNetwork extends RoadNetwork {
 											// roadside
 		final double pos = getStartPositionInLane0(vehicle);
 		if (pos >= 0) {
-			edge.parkedVehicles.remove(vehicle);
+			edge.removeParkedVehicle(vehicle);
 			vehicle.lane = lane;
-			vehicle.lane.vehicles.add(vehicle);
 			vehicle.headPosition = pos;
 			vehicle.speed = 0;
-			Collections.sort(vehicle.lane.vehicles, vehiclePositionComparator);// Sort
+			vehicle.lane.vehicles.add(vehicle);
+			updateVehicleState(vehicle);
 			return true;
 		} else {
 			return false;
@@ -103,6 +103,10 @@ public class Edge {
 	 */
 	public int numLeftLanes;
 	public int numLeftOnlyLanes;
+	/**
+	 * Movements from this edge to the outward edges of its end node.
+	 */
+	public Movement[] movements = new Movement[0];
 
 	public Edge(final int importedStartNodeIndex, final int importedEndNodeIndex, final String type, final String name,
 			final double maxspeed, final boolean roundabout, final List<String> tramRoutesRef,
@@ -122,4 +126,44 @@ public class Edge {
 		this.numRightLanes = numRightLanes;
 		this.numRightOnlyLanes = numRightOnlyLanes;
 	}
+
+	/**
+	 * Get the movement from this edge to a given outward edge of its end node.
+	 *
+	 * @return The movement, or null if the given edge does not start from the
+	 *         end node of this edge.
+	 */
+	public Movement getMovement(final Edge outboundEdge) {
+		for (final Movement movement : movements) {
+			if (movement.outboundEdge == outboundEdge) {
+				return movement;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Add a vehicle to the parked vehicles on this edge.
+	 */
+	public void addParkedVehicle(final Vehicle vehicle) {
+		vehicle.indexInParkedVehicles = parkedVehicles.size();
+		parkedVehicles.add(vehicle);
+	}
+
+	/**
+	 * Remove a vehicle from the parked vehicles on this edge. The last parked
+	 * vehicle is moved to the position of the removed vehicle.
+	 */
+	public void removeParkedVehicle(final Vehicle vehicle) {
+		final int index = vehicle.indexInParkedVehicles;
+		if ((index < 0) || (index >= parkedVehicles.size()) || (parkedVehicles.get(index) != vehicle)) {
+			return;
+		}
+		final Vehicle lastVehicle = parkedVehicles.remove(parkedVehicles.size() - 1);
+		if (lastVehicle != vehicle) {
+			parkedVehicles.set(index, lastVehicle);
+			lastVehicle.indexInParkedVehicles = index;
+		}
+		vehicle.indexInParkedVehicles = -1;
+	}
 }
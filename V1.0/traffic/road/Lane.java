@@ -1,9 +1,5 @@
 package traffic.road;
 
-import java.util.ArrayList;
-
-import traffic.vehicle.Vehicle;
-
 /**
  * Lane is a basic element in road network. An edge contains one or more lanes.
  *
@@ -22,9 +18,10 @@ public class Lane {
 	 */
 	public int index;
 	/**
-	 * Collection of the vehicles traveling on this lane.
+	 * Collection of the vehicles traveling on this lane, ordered by their head
+	 * positions.
 	 */
-	public ArrayList<Vehicle> vehicles = new ArrayList<>(50);
+	public LaneVehicleList vehicles = new LaneVehicleList(this);
 	/**
 	 * Whether this lane is manually blocked by user.
 	 */
@@ -0,0 +1,54 @@
+package traffic.road;
+
+/**
+ * A set of lanes, stored as bits indexed by the lane indexes in the whole
+ * network. Lanes in the set are visited in the order of their indexes.
+ *
+ */
+public class LaneSet {
+	long[] words;
+
+	public LaneSet(final int numLanes) {
+		words = new long[(numLanes + 63) >>> 6];
+	}
+
+	public void add(final Lane lane) {
+		words[lane.index >>> 6] |= 1L << lane.index;
+	}
+
+	public void clear() {
+		for (int i = 0; i < words.length; i++) {
+			words[i] = 0;
+		}
+	}
+
+	public boolean contains(final Lane lane) {
+		return (words[lane.index >>> 6] & (1L << lane.index)) != 0;
+	}
+
+	/**
+	 * Find the first lane that is in both this set and another set, starting
+	 * from a given lane index.
+	 *
+	 * @return Index of the lane, or -1 if there is no such lane.
+	 */
+	public int nextIndexInBoth(final LaneSet other, final int fromIndex) {
+		int wordIndex = fromIndex >>> 6;
+		if (wordIndex >= words.length) {
+			return -1;
+		}
+		long word = words[wordIndex] & other.words[wordIndex] & (-1L << fromIndex);
+		while (word == 0) {
+			wordIndex++;
+			if (wordIndex >= words.length) {
+				return -1;
+			}
+			word = words[wordIndex] & other.words[wordIndex];
+		}
+		return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	public void remove(final Lane lane) {
+		words[lane.index >>> 6] &= ~(1L << lane.index);
+	}
+}
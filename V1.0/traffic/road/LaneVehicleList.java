@@ -0,0 +1,252 @@
+package traffic.road;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import traffic.vehicle.Vehicle;
+
+/**
+ * Vehicles in a lane, ordered by their head positions. The vehicle closest to
+ * the end of the lane is the first element. The vehicles are stored in a
+ * circular array, so vehicles leaving at the end of the lane and vehicles
+ * entering at the start of the lane do not shift other vehicles.
+ *
+ * The position of a new vehicle is found by binary search in O(log n) time.
+ * Inserting or removing a vehicle in the middle of the lane shifts the
+ * shorter side of the list, which is O(min(i, n - i)) for index i. This is
+ * acceptable because most vehicles enter at the start and leave at the end
+ * of a lane, where nothing is shifted, and a vehicle changing lane enters a
+ * lane that rarely holds more than a few hundred vehicles. A balanced tree
+ * would give O(log n) insertion but the models need O(1) access to the
+ * vehicle at any index, such as the vehicles in front and behind.
+ *
+ * The array is empty until the first vehicle enters the lane, as most lanes
+ * are empty at any time.
+ *
+ */
+public class LaneVehicleList implements Iterable<Vehicle> {
+
+	class LaneVehicleIterator implements Iterator<Vehicle> {
+		int index = 0;
+
+		@Override
+		public boolean hasNext() {
+			return index < size;
+		}
+
+		@Override
+		public Vehicle next() {
+			if (index >= size) {
+				throw new NoSuchElementException();
+			}
+			final Vehicle vehicle = get(index);
+			index++;
+			return vehicle;
+		}
+	}
+
+	static final Vehicle[] noItems = new Vehicle[0];
+	/**
+	 * Capacity when the first vehicle enters the lane.
+	 */
+	static final int initialCapacity = 4;
+
+	Vehicle[] items = noItems;
+	final Lane lane;
+	/**
+	 * Set of occupied lanes in the network. This list adds its lane to the
+	 * set when the first vehicle enters the lane, and removes the lane when
+	 * the last vehicle leaves.
+	 */
+	LaneSet occupiedLanes = null;
+	/**
+	 * Position of the first vehicle in the circular array.
+	 */
+	int head = 0;
+	int size = 0;
+
+	/**
+	 * @param lane
+	 *            The lane that the vehicles are on.
+	 */
+	public LaneVehicleList(final Lane lane) {
+		this.lane = lane;
+	}
+
+	/**
+	 * Add vehicle at the position given by its head position. A vehicle is
+	 * placed behind the vehicles with the same head position.
+	 */
+	public void add(final Vehicle vehicle) {
+		if (size == items.length) {
+			grow();
+		}
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (get(mid).headPosition >= vehicle.headPosition) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		insertAt(low, vehicle);
+	}
+
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			set(i, null);
+		}
+		head = 0;
+		size = 0;
+		if (occupiedLanes != null) {
+			occupiedLanes.remove(lane);
+		}
+	}
+
+	/**
+	 * Find the index of a vehicle. The search starts from the position where a
+	 * vehicle with the same head position would be placed and moves outwards.
+	 * All the vehicles are checked if the vehicle cannot be found around the
+	 * position.
+	 *
+	 * @return Index of the vehicle, or -1 if the vehicle is not in the list.
+	 */
+	int find(final Vehicle vehicle) {
+		if (size == 0) {
+			return -1;
+		}
+		// Vehicles often leave from either end of the lane
+		if (items[head] == vehicle) {
+			return 0;
+		}
+		if (get(size - 1) == vehicle) {
+			return size - 1;
+		}
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (get(mid).headPosition > vehicle.headPosition) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		for (int distance = 0; distance < size; distance++) {
+			final int after = low + distance;
+			final int before = low - distance - 1;
+			if ((after >= size) && (before < 0)) {
+				break;
+			}
+			if ((after < size) && (get(after) == vehicle)) {
+				return after;
+			}
+			if ((before >= 0) && (get(before) == vehicle)) {
+				return before;
+			}
+		}
+		return -1;
+	}
+
+	public Vehicle get(final int index) {
+		return items[(head + index) & (items.length - 1)];
+	}
+
+	public Vehicle getFirst() {
+		return size == 0 ? null : items[head];
+	}
+
+	public Vehicle getLast() {
+		return size == 0 ? null : get(size - 1);
+	}
+
+	/**
+	 * Double the capacity, which is always a power of two.
+	 */
+	void grow() {
+		final Vehicle[] newItems = new Vehicle[Math.max(initialCapacity, items.length * 2)];
+		for (int i = 0; i < size; i++) {
+			newItems[i] = get(i);
+		}
+		items = newItems;
+		head = 0;
+	}
+
+	/**
+	 * Insert vehicle at the given index. The shorter side of the list is
+	 * shifted to make room for the vehicle.
+	 */
+	void insertAt(final int index, final Vehicle vehicle) {
+		if (index < (size - index)) {
+			head = (head - 1) & (items.length - 1);
+			for (int i = 0; i < index; i++) {
+				set(i, get(i + 1));
+			}
+		} else {
+			for (int i = size; i > index; i--) {
+				set(i, get(i - 1));
+			}
+		}
+		set(index, vehicle);
+		size++;
+		if ((size == 1) && (occupiedLanes != null)) {
+			occupiedLanes.add(lane);
+		}
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public Iterator<Vehicle> iterator() {
+		return new LaneVehicleIterator();
+	}
+
+	/**
+	 * Remove vehicle from the list.
+	 *
+	 * @return Whether the vehicle was in the list.
+	 */
+	public boolean remove(final Vehicle vehicle) {
+		final int index = find(vehicle);
+		if (index < 0) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	/**
+	 * Remove the vehicle at the given index. The shorter side of the list is
+	 * shifted to fill the gap.
+	 */
+	void removeAt(final int index) {
+		if (index < (size - 1 - index)) {
+			for (int i = index; i > 0; i--) {
+				set(i, get(i - 1));
+			}
+			set(0, null);
+			head = (head + 1) & (items.length - 1);
+		} else {
+			for (int i = index; i < (size - 1); i++) {
+				set(i, get(i + 1));
+			}
+			set(size - 1, null);
+		}
+		size--;
+		if ((size == 0) && (occupiedLanes != null)) {
+			occupiedLanes.remove(lane);
+		}
+	}
+
+	void set(final int index, final Vehicle vehicle) {
+		items[(head + index) & (items.length - 1)] = vehicle;
+	}
+
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,156 @@
+package traffic.road;
+
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+
+import common.Settings;
+import traffic.light.LightColor;
+
+/**
+ * Movement from an inbound edge to an outbound edge at an intersection. The
+ * parts of a movement that only depend on the road network, i.e., conflicting
+ * approaches, turn direction and lane mapping, are computed once when the
+ * network is built. Only the traffic light colors need to be checked during
+ * simulation.
+ *
+ */
+public class Movement {
+	static final Edge[] noEdges = new Edge[0];
+
+	public Edge inboundEdge;
+	public Edge outboundEdge;
+	/**
+	 * Direction of the turn from inbound edge to outbound edge. The direction
+	 * is NONE if the two edges belong to the same road.
+	 */
+	public TurnDirection turnDirection;
+	/**
+	 * Number of the lane on outbound edge for each lane on inbound edge. See
+	 * {@link RoadUtil#getLaneNumberForTargetEdge(Edge, Edge, int)}.
+	 */
+	public int[] laneNumbers;
+	/*
+	 * Approaches with conflicting traffic in drive-on-left and drive-on-right
+	 * systems. The approaches in the 'UnderGreen' arrays only conflict with
+	 * this movement when inbound edge has green light.
+	 */
+	Edge[] conflictingEdgesDriveOnLeft;
+	Edge[] conflictingEdgesUnderGreenDriveOnLeft;
+	Edge[] conflictingEdgesDriveOnRight;
+	Edge[] conflictingEdgesUnderGreenDriveOnRight;
+
+	public Movement(final Edge inboundEdge, final Edge outboundEdge) {
+		this.inboundEdge = inboundEdge;
+		this.outboundEdge = outboundEdge;
+		turnDirection = findTurnDirection();
+		laneNumbers = new int[inboundEdge.lanes.size()];
+		for (int i = 0; i < laneNumbers.length; i++) {
+			laneNumbers[i] = RoadUtil.getLaneNumberForTargetEdge(outboundEdge, inboundEdge, i);
+		}
+		findConflictingEdges();
+	}
+
+	/**
+	 * Add the edges that have conflicting traffic at the current light colors
+	 * to a given list.
+	 */
+	public void getConflictingEdges(final ArrayList<Edge> conflictEdges) {
+		conflictEdges.clear();
+		if (Settings.isDriveOnLeft) {
+			addEdgesWithoutRedLight(conflictingEdgesDriveOnLeft, conflictEdges);
+			if (inboundEdge.lightColor == LightColor.GYR_G) {
+				addEdgesWithoutRedLight(conflictingEdgesUnderGreenDriveOnLeft, conflictEdges);
+			}
+		} else {
+			addEdgesWithoutRedLight(conflictingEdgesDriveOnRight, conflictEdges);
+			if (inboundEdge.lightColor == LightColor.GYR_G) {
+				addEdgesWithoutRedLight(conflictingEdgesUnderGreenDriveOnRight, conflictEdges);
+			}
+		}
+	}
+
+	void addEdgesWithoutRedLight(final Edge[] edges, final ArrayList<Edge> list) {
+		for (final Edge e : edges) {
+			if ((e.lightColor != LightColor.GYR_R) && (e.lightColor != LightColor.KEEP_RED)) {
+				list.add(e);
+			}
+		}
+	}
+
+	/**
+	 * Find the approaches that may have conflicting traffic. An approach on
+	 * the roadside has conflicting traffic if it is in a roundabout or if its
+	 * road has higher priority or is a different road of the same priority. An
+	 * approach on the opposite side has conflicting traffic if its road has
+	 * higher priority, or if it is the opposite direction of the same road and
+	 * the light is green. Traffic in a roundabout does not give way to the
+	 * approaches on the opposite side.
+	 */
+	void findConflictingEdges() {
+		final ArrayList<Edge> inwardEdgesL = RoadUtil.findInwardEdgesOnLeft(inboundEdge, outboundEdge);
+		final ArrayList<Edge> inwardEdgesR = RoadUtil.findInwardEdgesOnRight(inboundEdge, outboundEdge);
+
+		final ArrayList<Edge> conflicts = new ArrayList<>();
+		final ArrayList<Edge> conflictsUnderGreen = new ArrayList<>();
+
+		findConflictingEdges(inwardEdgesR, inwardEdgesL, conflicts, conflictsUnderGreen);
+		conflictingEdgesDriveOnLeft = toArray(conflicts);
+		conflictingEdgesUnderGreenDriveOnLeft = toArray(conflictsUnderGreen);
+
+		findConflictingEdges(inwardEdgesL, inwardEdgesR, conflicts, conflictsUnderGreen);
+		conflictingEdgesDriveOnRight = toArray(conflicts);
+		conflictingEdgesUnderGreenDriveOnRight = toArray(conflictsUnderGreen);
+	}
+
+	void findConflictingEdges(final ArrayList<Edge> roadsideEdges, final ArrayList<Edge> oppositeSideEdges,
+			final ArrayList<Edge> conflicts, final ArrayList<Edge> conflictsUnderGreen) {
+		conflicts.clear();
+		conflictsUnderGreen.clear();
+		for (final Edge e : roadsideEdges) {
+			if (e.isRoundabout) {
+				conflicts.add(e);
+			} else if (e.type.priority > inboundEdge.type.priority) {
+				conflicts.add(e);
+			} else if ((e.type.priority == inboundEdge.type.priority) && !e.name.equals(inboundEdge.name)) {
+				conflicts.add(e);
+			}
+		}
+		if (inboundEdge.isRoundabout) {
+			return;
+		}
+		for (final Edge e : oppositeSideEdges) {
+			if (e.type.priority > inboundEdge.type.priority) {
+				conflicts.add(e);
+			} else if ((e.type.priority == inboundEdge.type.priority) && e.name.equals(inboundEdge.name)) {
+				// Vehicle from opposite direction on same road
+				conflictsUnderGreen.add(e);
+			}
+		}
+	}
+
+	TurnDirection findTurnDirection() {
+		if (inboundEdge.startNode == outboundEdge.endNode) {
+			return TurnDirection.U_TURN;
+		}
+		if (inboundEdge.name.equals(outboundEdge.name) && (inboundEdge.type == outboundEdge.type)) {
+			return TurnDirection.NONE;
+		}
+		final int ccw = Line2D.relativeCCW(inboundEdge.startNode.lon, inboundEdge.startNode.lat * Settings.lonVsLat,
+				inboundEdge.endNode.lon, inboundEdge.endNode.lat * Settings.lonVsLat, outboundEdge.endNode.lon,
+				outboundEdge.endNode.lat * Settings.lonVsLat);
+		if (ccw < 0) {
+			return TurnDirection.LEFT;
+		} else if (ccw > 0) {
+			return TurnDirection.RIGHT;
+		} else {
+			return TurnDirection.NONE;
+		}
+	}
+
+	Edge[] toArray(final ArrayList<Edge> edges) {
+		if (edges.isEmpty()) {
+			return noEdges;
+		}
+		return edges.toArray(new Edge[edges.size()]);
+	}
+}
@@ -33,6 +33,10 @@ public class RoadNetwork {
 	 * multiple lanes on an edge.
 	 */
 	public ArrayList<Lane> lanes = new ArrayList<>(1000000);
+	/**
+	 * Lanes that contain at least one vehicle.
+	 */
+	public LaneSet occupiedLanes;
 	/**
 	 * Bounds of map.
 	 */
@@ -62,6 +66,7 @@ public class RoadNetwork {
 		buildGrid();
 		setIndexes();
 		addLightAndNameToTramEdges();
+		buildMovements();
 	}
 
 	/**
@@ -118,6 +123,21 @@ public class RoadNetwork {
 		}
 	}
 
+	/**
+	 * Build the movement table of each node. There is one movement for each
+	 * pair of inward edge and outward edge at the node.
+	 */
+	void buildMovements() {
+		for (final Node node : nodes) {
+			for (final Edge inboundEdge : node.inwardEdges) {
+				inboundEdge.movements = new Movement[node.outwardEdges.size()];
+				for (int i = 0; i < node.outwardEdges.size(); i++) {
+					inboundEdge.movements[i] = new Movement(inboundEdge, node.outwardEdges.get(i));
+				}
+			}
+		}
+	}
+
 	/**
 	 * Build the grid partition of space.
 	 */
@@ -603,6 +623,13 @@ public class RoadNetwork {
 		for (int i = 0; i < lanes.size(); i++) {
 			lanes.get(i).index = i;
 		}
+		/*
+		 * Track occupied lanes based on lane id
+		 */
+		occupiedLanes = new LaneSet(lanes.size());
+		for (final Lane lane : lanes) {
+			lane.vehicles.occupiedLanes = occupiedLanes;
+		}
 	}
 
 }
@@ -11,7 +11,6 @@ import java.util.Collections;
 import java.util.Comparator;
 
 import common.Settings;
-import traffic.light.LightColor;
 import traffic.vehicle.Vehicle;
 import traffic.vehicle.VehicleType;
 
@@ -42,8 +41,18 @@ public class RoadUtil {
 	 * is e2's start node.
 	 */
 	static ArrayList<Edge> findInwardEdgesOnLeft(final Edge e1, final Edge e2) {
-		final Node pivot = e1.endNode;
 		final ArrayList<Edge> edgesOnLeftSide = new ArrayList<>();
+		findInwardEdgesOnLeft(e1, e2, edgesOnLeftSide);
+		return edgesOnLeftSide;
+	}
+
+	/**
+	 * Find the inward edges on the left of two links e1 and e2 and put them in
+	 * a given list. e1's end node is e2's start node.
+	 */
+	static void findInwardEdgesOnLeft(final Edge e1, final Edge e2, final ArrayList<Edge> edgesOnLeftSide) {
+		final Node pivot = e1.endNode;
+		edgesOnLeftSide.clear();
 		final int e2Index = pivot.connectedNodes.indexOf(e2.endNode);
 		// Note: exclude e2's end node
 		for (int i = 1; i < pivot.connectedNodes.size(); i++) {
@@ -53,14 +62,14 @@ public class RoadUtil {
 			if (connectedNode == e1.startNode) {
 				break;
 			}
-			for (final Edge e : pivot.inwardEdges) {
+			for (int j = 0; j < pivot.inwardEdges.size(); j++) {
+				final Edge e = pivot.inwardEdges.get(j);
 				if (e.startNode == connectedNode) {
 					edgesOnLeftSide.add(e);
 					break;
 				}
 			}
 		}
-		return edgesOnLeftSide;
 	}
 
 	/**
@@ -68,8 +77,18 @@ public class RoadUtil {
 	 * is e2's start node.
 	 */
 	static ArrayList<Edge> findInwardEdgesOnRight(final Edge e1, final Edge e2) {
-		final Node pivot = e1.endNode;
 		final ArrayList<Edge> edgesOnRightSide = new ArrayList<>();
+		findInwardEdgesOnRight(e1, e2, edgesOnRightSide);
+		return edgesOnRightSide;
+	}
+
+	/**
+	 * Find the inward edges on the right of two links e1 and e2 and put them in
+	 * a given list. e1's end node is e2's start node.
+	 */
+	static void findInwardEdgesOnRight(final Edge e1, final Edge e2, final ArrayList<Edge> edgesOnRightSide) {
+		final Node pivot = e1.endNode;
+		edgesOnRightSide.clear();
 		final int e1Index = pivot.connectedNodes.indexOf(e1.startNode);
 		// Note: exclude e1's start node
 		for (int i = 1; i < pivot.connectedNodes.size(); i++) {
@@ -79,14 +98,14 @@ public class RoadUtil {
 			if (connectedNode == e2.endNode) {
 				break;
 			}
-			for (final Edge e : pivot.inwardEdges) {
+			for (int j = 0; j < pivot.inwardEdges.size(); j++) {
+				final Edge e = pivot.inwardEdges.get(j);
 				if (e.startNode == connectedNode) {
 					edgesOnRightSide.add(e);
 					break;
 				}
 			}
 		}
-		return edgesOnRightSide;
 	}
 
 	/**
@@ -150,75 +169,10 @@ public class RoadUtil {
 	public static ArrayList<Edge> getConflictingEdges(final Edge e1,
 			final Edge e2) {
 		final ArrayList<Edge> conflictEdges = new ArrayList<>();
-		final ArrayList<Edge> inwardEdgesR = findInwardEdgesOnRight(e1, e2);
-		final ArrayList<Edge> inwardEdgesL = findInwardEdgesOnLeft(e1, e2);
-
-		if (Settings.isDriveOnLeft) {
-			// Drive on LEFT
-			for (final Edge eInR : inwardEdgesR) {
-				if ((eInR.lightColor == LightColor.GYR_R)
-						|| (eInR.lightColor == LightColor.KEEP_RED)) {
-					continue;
-				}
-				if (eInR.isRoundabout) {
-					conflictEdges.add(eInR);
-				} else if (eInR.type.priority > e1.type.priority) {
-					conflictEdges.add(eInR);
-				} else if (eInR.type.priority == e1.type.priority
-						&& !eInR.name.equals(e1.name)) {
-					conflictEdges.add(eInR);
-				}
-			}
-
-			for (final Edge eInL : inwardEdgesL) {
-				if (e1.isRoundabout || (eInL.lightColor == LightColor.GYR_R)
-						|| (eInL.lightColor == LightColor.KEEP_RED)) {
-					continue;
-				}
-				if (eInL.type.priority > e1.type.priority) {
-					conflictEdges.add(eInL);
-				} else if (eInL.type.priority == e1.type.priority
-						&& eInL.name.equals(e1.name)
-						&& e1.lightColor == LightColor.GYR_G) {
-					// Consider vehicle from opposite direction on same road
-					// when turning right under green light
-					conflictEdges.add(eInL);
-				}
-			}
-		} else {
-			// Drive on RIGHT
-			for (final Edge eInL : inwardEdgesL) {
-				if ((eInL.lightColor == LightColor.GYR_R)
-						|| (eInL.lightColor == LightColor.KEEP_RED)) {
-					continue;
-				}
-				if (eInL.isRoundabout) {
-					conflictEdges.add(eInL);
-				} else if (eInL.type.priority > e1.type.priority) {
-					conflictEdges.add(eInL);
-				} else if (eInL.type.priority == e1.type.priority
-						&& !eInL.name.equals(e1.name)) {
-					conflictEdges.add(eInL);
-				}
-			}
-
-			for (final Edge eInR : inwardEdgesR) {
-				if (e1.isRoundabout || (eInR.lightColor == LightColor.GYR_R)
-						|| (eInR.lightColor == LightColor.KEEP_RED)) {
-					continue;
-				}
-				if (eInR.type.priority > e1.type.priority) {
-					conflictEdges.add(eInR);
-				} else if (eInR.type.priority == e1.type.priority
-						&& eInR.name.equals(e1.name)
-						&& e1.lightColor == LightColor.GYR_G) {
-					// Consider vehicle from opposite direction on same road
-					// when turning left under green light
-					conflictEdges.add(eInR);
-				}
-			}
+		final Movement movement = e1.getMovement(e2);
+		if (movement != null) {
+			movement.getConflictingEdges(conflictEdges);
 		}
-
 		return conflictEdges;
 	}
 
@@ -325,7 +279,8 @@ public class RoadUtil {
 	}
 
 	public static boolean hasIntersectionAtEdgeStart(final Edge edge) {
-		for (final Edge e : edge.startNode.inwardEdges) {
+		for (int i = 0; i < edge.startNode.inwardEdges.size(); i++) {
+			final Edge e = edge.startNode.inwardEdges.get(i);
 			if (e.name.equals(edge.name) && (e.type == edge.type)) {
 				// Ignore the edge on the same road
 				continue;
@@ -363,8 +318,8 @@ public class RoadUtil {
 	
 
 	public static boolean isEdgeOnPathOfPriorityVehicle(final Edge edge) {
-		for (final Lane l : edge.lanes) {
-			if (l.isPriority) {
+		for (int i = 0; i < edge.lanes.size(); i++) {
+			if (edge.lanes.get(i).isPriority) {
 				return true;
 			}
 		}
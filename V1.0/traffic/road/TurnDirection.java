@@ -0,0 +1,5 @@
+package traffic.road;
+
+public enum TurnDirection {
+	NONE, LEFT, RIGHT, U_TURN
+}
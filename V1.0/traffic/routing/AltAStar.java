@@ -0,0 +1,192 @@
+package traffic.routing;
+
+import java.util.ArrayList;
+
+import common.Settings;
+import traffic.TrafficNetwork;
+import traffic.road.Edge;
+import traffic.vehicle.VehicleType;
+
+/**
+ * A* search with landmarks and triangle inequality (ALT). The distances from
+ * every node to a few landmark nodes and from the landmarks to every node are
+ * computed once. During a search, the lower bound of the distance from a node
+ * to the destination is derived from these distances when the node is reached
+ * for the first time.
+ *
+ * The bounds are computed on the whole road network, so they are still lower
+ * bounds when tram tracks or blocked roads cannot be used. Multiplying the
+ * bounds by a stretch factor above 1 makes the search visit fewer nodes. The
+ * route found is then at most the stretch factor times longer than the
+ * shortest route.
+ *
+ */
+public class AltAStar extends Routing {
+	int numLandmarks;
+	double stretch;
+	int[] landmarks;
+	/*
+	 * Distances from each landmark to every node and from every node to each
+	 * landmark. Unreachable nodes have infinite distances.
+	 */
+	float[][] distFromLandmark;
+	float[][] distToLandmark;
+
+	public AltAStar(final TrafficNetwork trafficNetwork) {
+		super(trafficNetwork);
+		final int numNodes = graph.numNodes;
+		numLandmarks = Math.max(0, Math.min(Settings.numLandmarksInAltAStar, numNodes));
+		stretch = Math.max(1, Settings.stretchInAltAStar);
+		selectLandmarks();
+	}
+
+	/**
+	 * Compute the shortest distances from a node to all the other nodes, or
+	 * from all the other nodes to a node if the search goes against the
+	 * direction of edges.
+	 */
+	float[] computeDistances(final SearchContext context, final int source, final boolean isReverse) {
+		context.startSearch();
+		context.setDist(source, 0, -1);
+		final IndexedHeap unvisited = context.heap;
+		unvisited.push(source, 0);
+		while (!unvisited.isEmpty()) {
+			final int nodeIndex = unvisited.pop();
+			context.settle(nodeIndex);
+			final int start = isReverse ? graph.reverseArcStart[nodeIndex] : graph.arcStart[nodeIndex];
+			final int end = isReverse ? graph.reverseArcStart[nodeIndex + 1] : graph.arcStart[nodeIndex + 1];
+			for (int i = start; i < end; i++) {
+				final int arc = isReverse ? graph.reverseArcs[i] : i;
+				final int next = isReverse ? graph.arcTail[arc] : graph.arcHead[arc];
+				final double nextDist = context.dist[nodeIndex] + graph.arcWeight[arc];
+				if (nextDist < context.getDist(next)) {
+					context.setDist(next, nextDist, arc);
+					unvisited.push(next, nextDist);
+				}
+			}
+		}
+		final float[] dist = new float[graph.numNodes];
+		for (int i = 0; i < dist.length; i++) {
+			dist[i] = (float) context.getDist(i);
+		}
+		return dist;
+	}
+
+	public void computePathsFromTo(final SearchContext context, final Edge startEdge, final Edge endEdge,
+			final VehicleType type) {
+		final int source = startEdge.startNode.index;
+		final int destination = endEdge.endNode.index;
+		final byte accessBit = RoutingGraph.getAccessBit(type);
+
+		context.startSearch();
+		context.setDist(source, 0, -1);
+		final IndexedHeap unvisited = context.heap;
+		unvisited.push(source, stretch * getHeuristicCost(context, source, destination));
+
+		while (!unvisited.isEmpty()) {
+			final int u = unvisited.pop();
+			context.settle(u);
+
+			if (u == destination) {
+				break;
+			}
+
+			// Visit each arc exiting u
+			for (int a = graph.arcStart[u]; a < graph.arcStart[u + 1]; a++) {
+				if (!graph.canUse(a, accessBit)) {
+					continue;
+				}
+				final int v = graph.arcHead[a];
+				if (context.isSettled(v)) {
+					continue;
+				}
+				final double knownCostThroughU = context.dist[u] + graph.arcWeight[a];
+				if (knownCostThroughU < context.getDist(v)) {
+					final double h = getHeuristicCost(context, v, destination);
+					if (h == Double.POSITIVE_INFINITY) {
+						// Destination cannot be reached from v
+						continue;
+					}
+					context.setDist(v, knownCostThroughU, a);
+					unvisited.push(v, knownCostThroughU + (stretch * h));
+				}
+			}
+		}
+	}
+
+	public ArrayList<RouteLeg> createCompleteRoute(final Edge startEdge, final Edge endEdge, final VehicleType type) {
+		final SearchContext context = contextPool.acquire();
+		try {
+			computePathsFromTo(context, startEdge, endEdge, type);
+			return createRouteLegs(context, endEdge.endNode.index);
+		} finally {
+			contextPool.release(context);
+		}
+	}
+
+	/**
+	 * Get the lower bound of the distance from a node to the destination. The
+	 * bound is computed when the node is reached for the first time in the
+	 * current search.
+	 *
+	 * @return The lower bound, which is infinite if the destination cannot be
+	 *         reached from the node.
+	 */
+	double getHeuristicCost(final SearchContext context, final int node, final int destination) {
+		if (context.hasHeuristic(node)) {
+			return context.heuristic[node];
+		}
+		double bound = 0;
+		for (int i = 0; i < numLandmarks; i++) {
+			// d(node, destination) >= d(node, landmark) - d(destination, landmark)
+			final float[] distTo = distToLandmark[i];
+			if (distTo[destination] != Float.POSITIVE_INFINITY) {
+				bound = Math.max(bound, (double) distTo[node] - distTo[destination]);
+			}
+			// d(node, destination) >= d(landmark, destination) - d(landmark, node)
+			final float[] distFrom = distFromLandmark[i];
+			if (distFrom[node] != Float.POSITIVE_INFINITY) {
+				bound = Math.max(bound, (double) distFrom[destination] - distFrom[node]);
+			}
+		}
+		context.setHeuristic(node, bound);
+		return bound;
+	}
+
+	/**
+	 * Select landmarks that are far away from each other. The first landmark
+	 * is the node farthest from the first node in the network. Each of the
+	 * other landmarks is the node farthest from the closest selected landmark.
+	 */
+	void selectLandmarks() {
+		landmarks = new int[numLandmarks];
+		distFromLandmark = new float[numLandmarks][];
+		distToLandmark = new float[numLandmarks][];
+		if (numLandmarks == 0) {
+			return;
+		}
+
+		final SearchContext context = contextPool.acquire();
+		final float[] distToClosestLandmark = computeDistances(context, 0, false);
+		for (int i = 0; i < numLandmarks; i++) {
+			int farthestNode = 0;
+			for (int node = 0; node < distToClosestLandmark.length; node++) {
+				final float dist = distToClosestLandmark[node];
+				if ((dist != Float.POSITIVE_INFINITY) && (dist > distToClosestLandmark[farthestNode])) {
+					farthestNode = node;
+				}
+			}
+			landmarks[i] = farthestNode;
+			distFromLandmark[i] = computeDistances(context, farthestNode, false);
+			distToLandmark[i] = computeDistances(context, farthestNode, true);
+			for (int node = 0; node < distToClosestLandmark.length; node++) {
+				if (i == 0) {
+					distToClosestLandmark[node] = distFromLandmark[i][node];
+				} else {
+					distToClosestLandmark[node] = Math.min(distToClosestLandmark[node], distFromLandmark[i][node]);
+				}
+			}
+		}
+		contextPool.release(context);
+	}
+}
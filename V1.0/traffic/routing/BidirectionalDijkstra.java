@@ -0,0 +1,132 @@
+package traffic.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import traffic.TrafficNetwork;
+import traffic.road.Edge;
+import traffic.vehicle.VehicleType;
+
+/**
+ * Dijkstra's algorithm searching from the source forward and from the
+ * destination backward at the same time. The two searches stop when the sum of
+ * their smallest queued distances is not shorter than the shortest route found
+ * through a node reached by both searches. No preprocessing is needed, so this
+ * can be used right after the road network is changed.
+ *
+ */
+public class BidirectionalDijkstra extends Routing {
+
+	public BidirectionalDijkstra(final TrafficNetwork trafficNetwork) {
+		super(trafficNetwork);
+	}
+
+	public ArrayList<RouteLeg> createCompleteRoute(final Edge startEdge, final Edge endEdge, final VehicleType type) {
+		final SearchContext forward = contextPool.acquire();
+		final SearchContext backward = contextPool.acquire();
+		try {
+			final int meetingNode = findMeetingNode(forward, backward, startEdge.startNode.index,
+					endEdge.endNode.index, RoutingGraph.getAccessBit(type), getArcWeights());
+			if (meetingNode < 0) {
+				return null;
+			}
+			final ArrayList<RouteLeg> legsOnRoute = new ArrayList<>();
+			for (int node = meetingNode; forward.previous[node] >= 0; node = graph.arcTail[forward.previous[node]]) {
+				legsOnRoute.add(new RouteLeg(graph.getEdge(forward.previous[node]), 0));
+			}
+			Collections.reverse(legsOnRoute);
+			for (int node = meetingNode; backward.previous[node] >= 0; node = graph.arcHead[backward.previous[node]]) {
+				legsOnRoute.add(new RouteLeg(graph.getEdge(backward.previous[node]), 0));
+			}
+			if (legsOnRoute.size() == 0) {
+				return null;
+			}
+			RouteUtil.removeRepeatSections(legsOnRoute);
+			return legsOnRoute;
+		} finally {
+			contextPool.release(forward);
+			contextPool.release(backward);
+		}
+	}
+
+	/**
+	 * Get the weights of arcs used by the searches.
+	 */
+	float[] getArcWeights() {
+		return graph.arcWeight;
+	}
+
+	/**
+	 * Search from source node forward and from destination node backward
+	 * until the shortest route is found. The search with the smaller queued
+	 * distance goes first.
+	 *
+	 * @return The node where the two halves of the shortest route meet, or -1
+	 *         if there is no route.
+	 */
+	int findMeetingNode(final SearchContext forward, final SearchContext backward, final int source,
+			final int destination, final byte accessBit, final float[] weights) {
+		forward.startSearch();
+		backward.startSearch();
+		forward.setDist(source, 0, -1);
+		forward.heap.push(source, 0);
+		backward.setDist(destination, 0, -1);
+		backward.heap.push(destination, 0);
+
+		double bestDist = source == destination ? 0 : Double.POSITIVE_INFINITY;
+		int meetingNode = source == destination ? source : -1;
+		while (true) {
+			final double forwardKey = forward.heap.peekKey();
+			final double backwardKey = backward.heap.peekKey();
+			if ((forwardKey + backwardKey) >= bestDist) {
+				break;
+			}
+			if (forwardKey <= backwardKey) {
+				final int u = forward.heap.pop();
+				forward.settle(u);
+				// Visit each arc exiting u
+				for (int a = graph.arcStart[u]; a < graph.arcStart[u + 1]; a++) {
+					if (!graph.canUse(a, accessBit)) {
+						continue;
+					}
+					final int v = graph.arcHead[a];
+					final double distanceThroughU = forwardKey + weights[a];
+					if (distanceThroughU < forward.getDist(v)) {
+						forward.setDist(v, distanceThroughU, a);
+						forward.heap.push(v, distanceThroughU);
+						if ((distanceThroughU + backward.getDist(v)) < bestDist) {
+							bestDist = distanceThroughU + backward.getDist(v);
+							meetingNode = v;
+						}
+					}
+				}
+			} else {
+				final int u = backward.heap.pop();
+				backward.settle(u);
+				// Visit each arc entering u
+				for (int i = graph.reverseArcStart[u]; i < graph.reverseArcStart[u + 1]; i++) {
+					final int a = graph.reverseArcs[i];
+					if (!graph.canUse(a, accessBit)) {
+						continue;
+					}
+					final int v = graph.arcTail[a];
+					final double distanceThroughU = backwardKey + weights[a];
+					if (distanceThroughU < backward.getDist(v)) {
+						backward.setDist(v, distanceThroughU, a);
+						backward.heap.push(v, distanceThroughU);
+						if ((distanceThroughU + forward.getDist(v)) < bestDist) {
+							bestDist = distanceThroughU + forward.getDist(v);
+							meetingNode = v;
+						}
+					}
+				}
+			}
+		}
+		return meetingNode;
+	}
+
+	@Override
+	public float[] getTreeWeights() {
+		return getArcWeights();
+	}
+}
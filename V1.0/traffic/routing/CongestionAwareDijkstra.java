@@ -0,0 +1,28 @@
+package traffic.routing;
+
+import traffic.TrafficNetwork;
+
+/**
+ * Bidirectional Dijkstra's algorithm that finds the fastest route based on the
+ * current traffic. The weight of an edge is its travel time at the speed
+ * estimated from the vehicles on the edge, taken from the latest snapshot of
+ * the estimates. Routes in the route cache are removed when a new snapshot is
+ * taken.
+ *
+ */
+public class CongestionAwareDijkstra extends BidirectionalDijkstra {
+
+	public CongestionAwareDijkstra(final TrafficNetwork trafficNetwork) {
+		super(trafficNetwork);
+	}
+
+	@Override
+	public boolean isUsingTravelTimes() {
+		return true;
+	}
+
+	@Override
+	float[] getArcWeights() {
+		return trafficNetwork.edgeSpeedEstimator.getArcTravelTimes();
+	}
+}
@@ -0,0 +1,551 @@
+package traffic.routing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import traffic.TrafficNetwork;
+import traffic.road.Edge;
+import traffic.vehicle.VehicleType;
+import traffic.vehicle.VehicleUtil;
+
+/**
+ * Routing based on contraction hierarchies. Road network is preprocessed by
+ * contracting the nodes one by one and adding shortcut arcs that keep the
+ * shortest distances between the remaining nodes. A query is a bidirectional
+ * search that only follows arcs towards nodes contracted later, so it visits a
+ * small part of the network.
+ *
+ * Vehicles that can use tram tracks and vehicles that cannot use tram tracks
+ * are routed on two different hierarchies. Each hierarchy is built when it is
+ * used for the first time. Blocked lanes do not change the hierarchies. If the
+ * route found in a hierarchy goes through a blocked road, the route is
+ * computed by Dijkstra's algorithm instead.
+ *
+ */
+public class ContractionHierarchies extends Routing {
+
+	/**
+	 * List of arc indexes.
+	 */
+	static class ArcList {
+		int[] arcs = new int[4];
+		int size = 0;
+
+		void add(final int arc) {
+			if (size == arcs.length) {
+				final int[] newArcs = new int[arcs.length * 2];
+				System.arraycopy(arcs, 0, newArcs, 0, size);
+				arcs = newArcs;
+			}
+			arcs[size] = arc;
+			size++;
+		}
+	}
+
+	/**
+	 * One graph of the road network after contraction.
+	 */
+	class Hierarchy {
+		/**
+		 * Access bit of a vehicle type routed on this hierarchy.
+		 */
+		final byte accessBit;
+		final int numNodes;
+		/*
+		 * Arcs, including the original ones and shortcuts. A shortcut consists
+		 * of two halves, which are also arcs. The halves of an original arc are
+		 * -1.
+		 */
+		int numArcs = 0;
+		int[] arcTail;
+		int[] arcHead;
+		double[] arcWeight;
+		int[] arcFirstHalf;
+		int[] arcSecondHalf;
+		/**
+		 * Order of node in contraction.
+		 */
+		int[] rank;
+		/*
+		 * Arcs going from a node to a higher ranked node, and arcs coming to a
+		 * node from a higher ranked node. The arcs of node i are between
+		 * index start[i] (inclusive) and start[i + 1] (exclusive).
+		 */
+		int[] upwardOutStart;
+		int[] upwardOutArcs;
+		int[] upwardInStart;
+		int[] upwardInArcs;
+
+		/*
+		 * Data used during contraction
+		 */
+		ArcList[] outArcs;
+		ArcList[] inArcs;
+		boolean[] isContracted;
+		int[] numContractedNeighbors;
+		SearchContext witnessContext;
+
+		Hierarchy(final byte accessBit) {
+			this.accessBit = accessBit;
+			numNodes = graph.numNodes;
+			allocateArcs(graph.numArcs * 2);
+
+			outArcs = new ArcList[numNodes];
+			inArcs = new ArcList[numNodes];
+			for (int i = 0; i < numNodes; i++) {
+				outArcs[i] = new ArcList();
+				inArcs[i] = new ArcList();
+			}
+			for (int a = 0; a < graph.numArcs; a++) {
+				if (!graph.canUseIgnoringBlock(a, accessBit) || (graph.arcTail[a] == graph.arcHead[a])) {
+					continue;
+				}
+				addArc(graph.arcTail[a], graph.arcHead[a], graph.arcWeight[a], -1, -1);
+			}
+
+			contractNodes();
+			buildUpwardArcs();
+		}
+
+		void addArc(final int tail, final int head, final double weight, final int firstHalf,
+				final int secondHalf) {
+			if (numArcs == arcTail.length) {
+				allocateArcs(arcTail.length * 2);
+			}
+			arcTail[numArcs] = tail;
+			arcHead[numArcs] = head;
+			arcWeight[numArcs] = weight;
+			arcFirstHalf[numArcs] = firstHalf;
+			arcSecondHalf[numArcs] = secondHalf;
+			outArcs[tail].add(numArcs);
+			inArcs[head].add(numArcs);
+			numArcs++;
+		}
+
+		void allocateArcs(final int capacity) {
+			final int newCapacity = Math.max(16, capacity);
+			arcTail = copyOf(arcTail, newCapacity);
+			arcHead = copyOf(arcHead, newCapacity);
+			arcWeight = copyOf(arcWeight, newCapacity);
+			arcFirstHalf = copyOf(arcFirstHalf, newCapacity);
+			arcSecondHalf = copyOf(arcSecondHalf, newCapacity);
+		}
+
+		/**
+		 * Put the arcs between a node and higher ranked nodes into arrays. The
+		 * lists used for contraction are released afterwards.
+		 */
+		void buildUpwardArcs() {
+			upwardOutStart = new int[numNodes + 1];
+			upwardInStart = new int[numNodes + 1];
+			for (int a = 0; a < numArcs; a++) {
+				if (rank[arcTail[a]] < rank[arcHead[a]]) {
+					upwardOutStart[arcTail[a] + 1]++;
+				} else {
+					upwardInStart[arcHead[a] + 1]++;
+				}
+			}
+			for (int i = 0; i < numNodes; i++) {
+				upwardOutStart[i + 1] += upwardOutStart[i];
+				upwardInStart[i + 1] += upwardInStart[i];
+			}
+			upwardOutArcs = new int[upwardOutStart[numNodes]];
+			upwardInArcs = new int[upwardInStart[numNodes]];
+			final int[] outPosition = new int[numNodes];
+			final int[] inPosition = new int[numNodes];
+			for (int a = 0; a < numArcs; a++) {
+				if (rank[arcTail[a]] < rank[arcHead[a]]) {
+					final int node = arcTail[a];
+					upwardOutArcs[upwardOutStart[node] + outPosition[node]] = a;
+					outPosition[node]++;
+				} else {
+					final int node = arcHead[a];
+					upwardInArcs[upwardInStart[node] + inPosition[node]] = a;
+					inPosition[node]++;
+				}
+			}
+
+			outArcs = null;
+			inArcs = null;
+			isContracted = null;
+			numContractedNeighbors = null;
+			witnessContext = null;
+		}
+
+		/**
+		 * Contract a node. For each pair of neighbors, a shortcut is needed if
+		 * the path through the node is shorter than any other path found by a
+		 * local search.
+		 *
+		 * @param isAddShortcuts
+		 *            Whether to add the shortcuts. If this is false, the
+		 *            shortcuts are only counted.
+		 * @return Number of shortcuts.
+		 */
+		int contractNode(final int node, final boolean isAddShortcuts) {
+			int numShortcuts = 0;
+			double maxOutWeight = 0;
+			final ArcList out = outArcs[node];
+			for (int i = 0; i < out.size; i++) {
+				final int outArc = out.arcs[i];
+				if (!isContracted[arcHead[outArc]] && (arcWeight[outArc] > maxOutWeight)) {
+					maxOutWeight = arcWeight[outArc];
+				}
+			}
+			final ArcList in = inArcs[node];
+			for (int i = 0; i < in.size; i++) {
+				final int inArc = in.arcs[i];
+				final int tail = arcTail[inArc];
+				if (isContracted[tail]) {
+					continue;
+				}
+				final double inWeight = arcWeight[inArc];
+				searchWitnesses(tail, node, inWeight + maxOutWeight);
+				for (int j = 0; j < out.size; j++) {
+					final int outArc = out.arcs[j];
+					final int head = arcHead[outArc];
+					if (isContracted[head] || (head == tail)) {
+						continue;
+					}
+					final double weightViaNode = inWeight + arcWeight[outArc];
+					if (witnessContext.getDist(head) <= weightViaNode) {
+						continue;
+					}
+					numShortcuts++;
+					if (isAddShortcuts) {
+						addArc(tail, head, weightViaNode, inArc, outArc);
+					}
+				}
+			}
+			return numShortcuts;
+		}
+
+		/**
+		 * Contract all the nodes. The next node to contract is the one that
+		 * adds the fewest shortcuts compared to the arcs it removes, while
+		 * nodes whose neighbors have been contracted are postponed. Priorities
+		 * are updated when the nodes are taken from the queue.
+		 */
+		void contractNodes() {
+			isContracted = new boolean[numNodes];
+			numContractedNeighbors = new int[numNodes];
+			witnessContext = new SearchContext(numNodes);
+			rank = new int[numNodes];
+
+			final PriorityQueue<NodePriority> queue = new PriorityQueue<>(Math.max(1, numNodes),
+					new NodePriorityComparator());
+			for (int i = 0; i < numNodes; i++) {
+				queue.add(new NodePriority(i, getPriority(i)));
+			}
+			int numContractedNodes = 0;
+			while (queue.size() > 0) {
+				final NodePriority nodePriority = queue.poll();
+				final int node = nodePriority.node;
+				final int priority = getPriority(node);
+				if ((queue.size() > 0) && (priority > queue.peek().priority)) {
+					nodePriority.priority = priority;
+					queue.add(nodePriority);
+					continue;
+				}
+				contractNode(node, true);
+				isContracted[node] = true;
+				rank[node] = numContractedNodes;
+				numContractedNodes++;
+				for (int i = 0; i < outArcs[node].size; i++) {
+					numContractedNeighbors[arcHead[outArcs[node].arcs[i]]]++;
+				}
+				for (int i = 0; i < inArcs[node].size; i++) {
+					numContractedNeighbors[arcTail[inArcs[node].arcs[i]]]++;
+				}
+			}
+		}
+
+		/**
+		 * Find a path from a source node to a destination node.
+		 *
+		 * @param path
+		 *            List that receives the edges on the path. The list is
+		 *            empty if there is no path.
+		 * @return False if the path goes through a road that is blocked.
+		 */
+		boolean findPath(final SearchContext forward, final SearchContext backward, final int source,
+				final int destination, final ArrayList<Edge> path) {
+			path.clear();
+			final int meetingNode = findMeetingNode(forward, backward, source, destination);
+			if (meetingNode < 0) {
+				return true;
+			}
+
+			// Arcs from source to meeting node, in reverse order
+			final ArcList pathArcs = new ArcList();
+			for (int node = meetingNode; forward.previous[node] >= 0; node = arcTail[forward.previous[node]]) {
+				pathArcs.add(forward.previous[node]);
+			}
+			for (int i = 0, j = pathArcs.size - 1; i < j; i++, j--) {
+				final int arc = pathArcs.arcs[i];
+				pathArcs.arcs[i] = pathArcs.arcs[j];
+				pathArcs.arcs[j] = arc;
+			}
+			// Arcs from meeting node to destination
+			for (int node = meetingNode; backward.previous[node] >= 0; node = arcHead[backward.previous[node]]) {
+				pathArcs.add(backward.previous[node]);
+			}
+
+			final ArcList unpackStack = new ArcList();
+			for (int i = 0; i < pathArcs.size; i++) {
+				unpackStack.size = 0;
+				unpackStack.add(pathArcs.arcs[i]);
+				while (unpackStack.size > 0) {
+					unpackStack.size--;
+					final int arc = unpackStack.arcs[unpackStack.size];
+					if (arcFirstHalf[arc] >= 0) {
+						unpackStack.add(arcSecondHalf[arc]);
+						unpackStack.add(arcFirstHalf[arc]);
+					} else {
+						final Edge edge = getEdge(arcTail[arc], arcHead[arc]);
+						if (edge == null) {
+							path.clear();
+							return false;
+						}
+						path.add(edge);
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Search from source node and destination node towards higher ranked
+		 * nodes until the shortest path is found.
+		 *
+		 * @return The highest ranked node on the shortest path, or -1 if there
+		 *         is no path.
+		 */
+		int findMeetingNode(final SearchContext forward, final SearchContext backward, final int source,
+				final int destination) {
+			forward.startSearch();
+			backward.startSearch();
+			forward.setDist(source, 0, -1);
+			forward.heap.push(source, 0);
+			backward.setDist(destination, 0, -1);
+			backward.heap.push(destination, 0);
+
+			double bestDist = Double.POSITIVE_INFINITY;
+			int meetingNode = -1;
+			while (true) {
+				final double forwardKey = forward.heap.peekKey();
+				final double backwardKey = backward.heap.peekKey();
+				if (Math.min(forwardKey, backwardKey) >= bestDist) {
+					break;
+				}
+				if (forwardKey <= backwardKey) {
+					final int node = forward.heap.pop();
+					if ((forwardKey + backward.getDist(node)) < bestDist) {
+						bestDist = forwardKey + backward.getDist(node);
+						meetingNode = node;
+					}
+					for (int i = upwardOutStart[node]; i < upwardOutStart[node + 1]; i++) {
+						final int arc = upwardOutArcs[i];
+						final int next = arcHead[arc];
+						final double dist = forwardKey + arcWeight[arc];
+						if (dist < forward.getDist(next)) {
+							forward.setDist(next, dist, arc);
+							forward.heap.push(next, dist);
+						}
+					}
+				} else {
+					final int node = backward.heap.pop();
+					if ((backwardKey + forward.getDist(node)) < bestDist) {
+						bestDist = backwardKey + forward.getDist(node);
+						meetingNode = node;
+					}
+					for (int i = upwardInStart[node]; i < upwardInStart[node + 1]; i++) {
+						final int arc = upwardInArcs[i];
+						final int next = arcTail[arc];
+						final double dist = backwardKey + arcWeight[arc];
+						if (dist < backward.getDist(next)) {
+							backward.setDist(next, dist, arc);
+							backward.heap.push(next, dist);
+						}
+					}
+				}
+			}
+			return meetingNode;
+		}
+
+		/**
+		 * Get the shortest edge between two nodes that can be used by the
+		 * vehicles of this hierarchy and is not blocked.
+		 */
+		Edge getEdge(final int tail, final int head) {
+			int shortestArc = -1;
+			for (int a = graph.arcStart[tail]; a < graph.arcStart[tail + 1]; a++) {
+				if ((graph.arcHead[a] == head) && graph.canUse(a, accessBit)
+						&& ((shortestArc < 0) || (graph.arcWeight[a] < graph.arcWeight[shortestArc]))) {
+					shortestArc = a;
+				}
+			}
+			return shortestArc < 0 ? null : graph.getEdge(shortestArc);
+		}
+
+		/**
+		 * Number of shortcuts added minus number of arcs removed by contracting
+		 * a node, plus the number of contracted neighbors.
+		 */
+		int getPriority(final int node) {
+			int numArcs = 0;
+			for (int i = 0; i < outArcs[node].size; i++) {
+				if (!isContracted[arcHead[outArcs[node].arcs[i]]]) {
+					numArcs++;
+				}
+			}
+			for (int i = 0; i < inArcs[node].size; i++) {
+				if (!isContracted[arcTail[inArcs[node].arcs[i]]]) {
+					numArcs++;
+				}
+			}
+			return (contractNode(node, false) - numArcs) + numContractedNeighbors[node];
+		}
+
+		/**
+		 * Search the shortest distances from a node to other nodes that are
+		 * not contracted, without going through the node being contracted. The
+		 * search stops at a given distance or after settling a certain number
+		 * of nodes.
+		 */
+		void searchWitnesses(final int source, final int nodeBeingContracted, final double maxDist) {
+			final SearchContext context = witnessContext;
+			context.startSearch();
+			context.setDist(source, 0, -1);
+			context.heap.push(source, 0);
+			int numSettledNodes = 0;
+			while (!context.heap.isEmpty()) {
+				final double dist = context.heap.peekKey();
+				if ((dist > maxDist) || (numSettledNodes >= maxNumSettledNodesInWitnessSearch)) {
+					break;
+				}
+				final int node = context.heap.pop();
+				numSettledNodes++;
+				final ArcList out = outArcs[node];
+				for (int i = 0; i < out.size; i++) {
+					final int arc = out.arcs[i];
+					final int next = arcHead[arc];
+					if (isContracted[next] || (next == nodeBeingContracted)) {
+						continue;
+					}
+					final double nextDist = dist + arcWeight[arc];
+					if (nextDist < context.getDist(next)) {
+						context.setDist(next, nextDist, arc);
+						context.heap.push(next, nextDist);
+					}
+				}
+			}
+		}
+	}
+
+	static class NodePriority {
+		int node;
+		int priority;
+
+		NodePriority(final int node, final int priority) {
+			this.node = node;
+			this.priority = priority;
+		}
+	}
+
+	static class NodePriorityComparator implements Comparator<NodePriority> {
+
+		@Override
+		public int compare(final NodePriority o1, final NodePriority o2) {
+			if (o1.priority != o2.priority) {
+				return o1.priority < o2.priority ? -1 : 1;
+			}
+			return o1.node < o2.node ? -1 : (o1.node > o2.node ? 1 : 0);
+		}
+
+	}
+
+	static double[] copyOf(final double[] values, final int capacity) {
+		final double[] copy = new double[capacity];
+		if (values != null) {
+			System.arraycopy(values, 0, copy, 0, Math.min(values.length, capacity));
+		}
+		return copy;
+	}
+
+	static int[] copyOf(final int[] values, final int capacity) {
+		final int[] copy = new int[capacity];
+		if (values != null) {
+			System.arraycopy(values, 0, copy, 0, Math.min(values.length, capacity));
+		}
+		return copy;
+	}
+
+	int maxNumSettledNodesInWitnessSearch = 100;//Local search for witness paths stops after settling this number of nodes
+	Hierarchy hierarchyWithTramTracks = null;
+	Hierarchy hierarchyWithoutTramTracks = null;
+	Dijkstra dijkstra = null;
+
+	public ContractionHierarchies(final TrafficNetwork trafficNetwork) {
+		super(trafficNetwork);
+	}
+
+	@Override
+	public ArrayList<RouteLeg> createCompleteRoute(final Edge startEdge, final Edge endEdge, final VehicleType type) {
+		final Hierarchy hierarchy = getHierarchy(type);
+		final ArrayList<Edge> path = new ArrayList<>();
+		final SearchContext forward = contextPool.acquire();
+		final SearchContext backward = contextPool.acquire();
+		boolean isPathUsable;
+		try {
+			isPathUsable = hierarchy.findPath(forward, backward, startEdge.startNode.index, endEdge.endNode.index,
+					path);
+		} finally {
+			contextPool.release(forward);
+			contextPool.release(backward);
+		}
+		if (!isPathUsable) {
+			return getDijkstra().createCompleteRoute(startEdge, endEdge, type);
+		}
+		if (path.size() == 0) {
+			return null;
+		}
+		final ArrayList<RouteLeg> legsOnRoute = new ArrayList<>();
+		for (final Edge edge : path) {
+			legsOnRoute.add(new RouteLeg(edge, 0));
+		}
+		RouteUtil.removeRepeatSections(legsOnRoute);
+		return legsOnRoute;
+	}
+
+	synchronized Dijkstra getDijkstra() {
+		if (dijkstra == null) {
+			dijkstra = new Dijkstra(trafficNetwork);
+		}
+		return dijkstra;
+	}
+
+	/**
+	 * Get the hierarchy for a type of vehicle. The hierarchy is built if it
+	 * does not exist yet.
+	 */
+	synchronized Hierarchy getHierarchy(final VehicleType type) {
+		if (VehicleUtil.canUseTramTrack(type)) {
+			if (hierarchyWithTramTracks == null) {
+				hierarchyWithTramTracks = new Hierarchy(RoutingGraph.getAccessBit(VehicleType.TRAM));
+			}
+			return hierarchyWithTramTracks;
+		} else {
+			if (hierarchyWithoutTramTracks == null) {
+				hierarchyWithoutTramTracks = new Hierarchy(RoutingGraph.getAccessBit(VehicleType.CAR));
+			}
+			return hierarchyWithoutTramTracks;
+		}
+	}
+
+	@Override
+	public float[] getTreeWeights() {
+		return graph.arcWeight;
+	}
+}
@@ -0,0 +1,101 @@
+package traffic.routing;
+
+import common.Settings;
+import traffic.road.Edge;
+
+/**
+ * Estimates the current speed on each edge from the speeds of the vehicles on
+ * the edge. The estimate is an exponentially smoothed mean, which is updated
+ * with the speed of every vehicle in every step. An edge without vehicles is
+ * regarded as an edge with free-flow traffic.
+ *
+ * Routing uses travel times derived from the estimates. The travel times are
+ * copied to a new array periodically, so the searches running at the same
+ * time as the updates use a consistent set of weights and the weights do not
+ * need to be rebuilt for every search.
+ *
+ * The simulation only updates the estimates when the routing algorithm uses
+ * travel times.
+ *
+ */
+public class EdgeSpeedEstimator {
+	/**
+	 * Speeds below this value are regarded as this value when computing travel
+	 * times, so that edges with stopped traffic still have finite weights.
+	 */
+	final double minSpeed = 1;
+	final RoutingGraph graph;
+	final Edge[] edges;
+	final double[] speeds;
+	final int[] numSamplesSinceSnapshot;
+	int numStepsSinceSnapshot = 0;
+	/**
+	 * Travel times of arcs in the latest snapshot.
+	 */
+	volatile float[] arcTravelTimes;
+
+	public EdgeSpeedEstimator(final RoutingGraph graph) {
+		this.graph = graph;
+		edges = graph.edges;
+		speeds = new double[edges.length];
+		numSamplesSinceSnapshot = new int[edges.length];
+		reset();
+	}
+
+	/**
+	 * Add the speed of a vehicle on an edge to the estimate of the edge.
+	 */
+	public void addSample(final Edge edge, final double speed) {
+		final int index = edge.index;
+		speeds[index] += Settings.edgeSpeedSmoothingFactor * (speed - speeds[index]);
+		numSamplesSinceSnapshot[index]++;
+	}
+
+	/**
+	 * Take a snapshot of travel times if enough steps have passed since the
+	 * latest snapshot.
+	 *
+	 * @return Whether a new snapshot is taken.
+	 */
+	public boolean finishStep() {
+		numStepsSinceSnapshot++;
+		if (numStepsSinceSnapshot < Settings.numStepsPerTravelTimeSnapshot) {
+			return false;
+		}
+		takeSnapshot();
+		return true;
+	}
+
+	/**
+	 * Get the travel times of arcs in the latest snapshot. The returned array
+	 * is not modified afterwards.
+	 */
+	public float[] getArcTravelTimes() {
+		return arcTravelTimes;
+	}
+
+	/**
+	 * Set the estimates to free-flow speeds.
+	 */
+	public void reset() {
+		for (int i = 0; i < edges.length; i++) {
+			speeds[i] = edges[i].freeFlowSpeed;
+			numSamplesSinceSnapshot[i] = 0;
+		}
+		takeSnapshot();
+	}
+
+	void takeSnapshot() {
+		final float[] travelTimes = new float[graph.numArcs];
+		for (int i = 0; i < edges.length; i++) {
+			// Edges without vehicles move towards free-flow speed
+			if (numSamplesSinceSnapshot[i] == 0) {
+				speeds[i] += Settings.edgeSpeedSmoothingFactor * (edges[i].freeFlowSpeed - speeds[i]);
+			}
+			numSamplesSinceSnapshot[i] = 0;
+			travelTimes[graph.edgeArc[i]] = (float) (edges[i].length / Math.max(minSpeed, speeds[i]));
+		}
+		arcTravelTimes = travelTimes;
+		numStepsSinceSnapshot = 0;
+	}
+}
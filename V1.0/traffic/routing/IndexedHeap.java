@@ -0,0 +1,155 @@
+package traffic.routing;
+
+/**
+ * Min-heap of nodes keyed by distance. Each node is in the heap at most once.
+ * The position of each node in the heap is recorded, so the key of a node can
+ * be decreased without adding another entry. Each parent has four children,
+ * which makes the heap shallower than a binary heap.
+ *
+ */
+class IndexedHeap {
+	static final int arity = 4;
+
+	int[] nodes = new int[64];
+	double[] keys = new double[64];
+	/**
+	 * Position of each node in the heap, or -1 if the node is not in the heap.
+	 */
+	int[] positions;
+	int size = 0;
+
+	IndexedHeap(final int numNodes) {
+		positions = new int[numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			positions[i] = -1;
+		}
+	}
+
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			positions[nodes[i]] = -1;
+		}
+		size = 0;
+	}
+
+	boolean contains(final int node) {
+		return positions[node] >= 0;
+	}
+
+	double getKey(final int node) {
+		return keys[positions[node]];
+	}
+
+	/**
+	 * Rebuild the heap after the keys are changed directly in the array.
+	 */
+	void heapify() {
+		for (int i = (size - 2) / arity; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	double peekKey() {
+		return size == 0 ? Double.POSITIVE_INFINITY : keys[0];
+	}
+
+	/**
+	 * Remove the node with the smallest key.
+	 *
+	 * @return The node.
+	 */
+	int pop() {
+		final int top = nodes[0];
+		positions[top] = -1;
+		size--;
+		if (size > 0) {
+			nodes[0] = nodes[size];
+			keys[0] = keys[size];
+			positions[nodes[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	/**
+	 * Add a node, or decrease its key if the node is already in the heap.
+	 *
+	 * @return Whether the node is added or its key is decreased.
+	 */
+	boolean push(final int node, final double key) {
+		int position = positions[node];
+		if (position >= 0) {
+			if (key >= keys[position]) {
+				return false;
+			}
+			keys[position] = key;
+			siftUp(position);
+			return true;
+		}
+		if (size == nodes.length) {
+			final int[] newNodes = new int[nodes.length * 2];
+			final double[] newKeys = new double[keys.length * 2];
+			System.arraycopy(nodes, 0, newNodes, 0, size);
+			System.arraycopy(keys, 0, newKeys, 0, size);
+			nodes = newNodes;
+			keys = newKeys;
+		}
+		position = size;
+		size++;
+		nodes[position] = node;
+		keys[position] = key;
+		positions[node] = position;
+		siftUp(position);
+		return true;
+	}
+
+	void siftDown(int position) {
+		final int node = nodes[position];
+		final double key = keys[position];
+		while (true) {
+			final int firstChild = (arity * position) + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int minChild = firstChild;
+			final int lastChild = Math.min(firstChild + arity, size);
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				if (keys[child] < keys[minChild]) {
+					minChild = child;
+				}
+			}
+			if (keys[minChild] >= key) {
+				break;
+			}
+			nodes[position] = nodes[minChild];
+			keys[position] = keys[minChild];
+			positions[nodes[position]] = position;
+			position = minChild;
+		}
+		nodes[position] = node;
+		keys[position] = key;
+		positions[node] = position;
+	}
+
+	void siftUp(int position) {
+		final int node = nodes[position];
+		final double key = keys[position];
+		while (position > 0) {
+			final int parent = (position - 1) / arity;
+			if (keys[parent] <= key) {
+				break;
+			}
+			nodes[position] = nodes[parent];
+			keys[position] = keys[parent];
+			positions[nodes[position]] = position;
+			position = parent;
+		}
+		nodes[position] = node;
+		keys[position] = key;
+		positions[node] = position;
+	}
+}
@@ -0,0 +1,195 @@
+package traffic.routing;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import common.Settings;
+import traffic.TrafficNetwork;
+import traffic.road.Edge;
+import traffic.vehicle.Vehicle;
+import traffic.vehicle.VehicleType;
+import traffic.vehicle.VehicleUtil;
+
+/**
+ * Re-routes vehicles in the background. Vehicles that need new routes during a
+ * step are queued. Requests from the same edge to the same destination are
+ * combined, so the route is only computed once. At the end of the step, a
+ * limited number of requests are computed by background threads, while the
+ * worker exchanges traffic with other workers. The new routes are given to the
+ * vehicles at the start of the next step. Until then the vehicles keep their
+ * old routes.
+ *
+ * The requests computed in a step and the vehicles that get the new routes
+ * only depend on the order of requests, so the result does not depend on the
+ * number of threads.
+ *
+ */
+public class ReRouteService {
+
+	/**
+	 * Vehicles waiting for the route between two edges. Request objects are
+	 * reused after their results are applied.
+	 */
+	class Request {
+		Edge startEdge;
+		Edge endEdge;
+		VehicleType type;
+		final ArrayList<Vehicle> vehicles = new ArrayList<>();
+		/**
+		 * Routes of the vehicles when the request is made. A vehicle does not
+		 * get the new route if its route has been changed since then.
+		 */
+		final ArrayList<ArrayList<RouteLeg>> oldRoutes = new ArrayList<>();
+		ForkJoinTask<ArrayList<RouteLeg>> task = null;
+
+		ArrayList<RouteLeg> createRoute() {
+			return trafficNetwork.routingAlgorithm.createCachedRoute(startEdge, endEdge, type);
+		}
+	}
+
+	TrafficNetwork trafficNetwork;
+	/**
+	 * Requests that are not computed yet, in the order they are made.
+	 */
+	LinkedHashMap<Long, Request> queuedRequests = new LinkedHashMap<>();
+	/**
+	 * Requests being computed, whose results will be applied at the start of
+	 * next step.
+	 */
+	ArrayList<Request> submittedRequests = new ArrayList<>();
+	/**
+	 * Request objects that can be reused.
+	 */
+	ArrayList<Request> freeRequests = new ArrayList<>();
+
+	public ReRouteService(final TrafficNetwork trafficNetwork) {
+		this.trafficNetwork = trafficNetwork;
+	}
+
+	/**
+	 * Give new routes to the vehicles whose requests have been computed. A
+	 * vehicle does not get the new route if it is no longer active or has
+	 * passed the start edge of the new route. The re-route count of a vehicle
+	 * increases when it gets a new route. Vehicles exceeding the maximum
+	 * number of re-routes are added to a given list.
+	 */
+	public void applyResults(final ArrayList<Vehicle> vehiclesExceedingMaxNumReRoute) {
+		for (int i = 0; i < submittedRequests.size(); i++) {
+			final Request request = submittedRequests.get(i);
+			final ArrayList<RouteLeg> partialRoute = request.task == null ? request.createRoute()
+					: request.task.join();
+			for (int j = 0; j < request.vehicles.size(); j++) {
+				final Vehicle vehicle = request.vehicles.get(j);
+				vehicle.isWaitingForReRoute = false;
+				if (!vehicle.active || (vehicle.routeLegs != request.oldRoutes.get(j))
+						|| (vehicle.indexLegOnRoute >= (vehicle.routeLegs.size() - 1))
+						|| (vehicle.routeLegs.get(vehicle.indexLegOnRoute + 1).edge != request.startEdge)) {
+					continue;
+				}
+				// Cancel priority lanes on the old route
+				if (vehicle.type == VehicleType.PRIORITY) {
+					VehicleUtil.setPriorityLanes(vehicle, false);
+				}
+				if (Routing.setPartialRoute(vehicle, partialRoute)) {
+					vehicle.numReRoute++;
+					if (vehicle.numReRoute > Settings.maxNumReRouteOfVehicle) {
+						vehiclesExceedingMaxNumReRoute.add(vehicle);
+					}
+				}
+			}
+			releaseRequest(request);
+		}
+		submittedRequests.clear();
+	}
+
+	/**
+	 * Remove all the requests. Requests being computed are finished first.
+	 */
+	public void clear() {
+		for (final Request request : submittedRequests) {
+			if (request.task != null) {
+				request.task.join();
+			}
+			for (final Vehicle vehicle : request.vehicles) {
+				vehicle.isWaitingForReRoute = false;
+			}
+			releaseRequest(request);
+		}
+		submittedRequests.clear();
+		for (final Request request : queuedRequests.values()) {
+			for (final Vehicle vehicle : request.vehicles) {
+				vehicle.isWaitingForReRoute = false;
+			}
+			releaseRequest(request);
+		}
+		queuedRequests.clear();
+	}
+
+	/**
+	 * Keep a request object for reuse.
+	 */
+	void releaseRequest(final Request request) {
+		request.vehicles.clear();
+		request.oldRoutes.clear();
+		request.task = null;
+		freeRequests.add(request);
+	}
+
+	/**
+	 * Request a new route for a vehicle, from the next leg on its current
+	 * route to its destination. The vehicle keeps its current route until the
+	 * new route is ready.
+	 */
+	public void request(final Vehicle vehicle) {
+		final ArrayList<RouteLeg> route = vehicle.routeLegs;
+		if (vehicle.isWaitingForReRoute || (vehicle.indexLegOnRoute >= (route.size() - 1))) {
+			return;
+		}
+		final Edge startEdge = route.get(vehicle.indexLegOnRoute + 1).edge;
+		final Edge endEdge = route.get(route.size() - 1).edge;
+		final Long key = RouteCache.getKey(startEdge, endEdge, vehicle.type, trafficNetwork.edges.size());
+		Request request = queuedRequests.get(key);
+		if (request == null) {
+			request = freeRequests.isEmpty() ? new Request() : freeRequests.remove(freeRequests.size() - 1);
+			request.startEdge = startEdge;
+			request.endEdge = endEdge;
+			request.type = vehicle.type;
+			queuedRequests.put(key, request);
+		}
+		request.vehicles.add(vehicle);
+		request.oldRoutes.add(route);
+		vehicle.isWaitingForReRoute = true;
+	}
+
+	/**
+	 * Start computing the earliest queued requests, up to the maximum number
+	 * of re-routes per step. The other requests stay in the queue.
+	 */
+	public void submitRequests() {
+		if (queuedRequests.isEmpty()) {
+			return;
+		}
+		final boolean isParallel = trafficNetwork.routingAlgorithm.isParallelRoutingAllowed();
+		final ForkJoinPool threadPool = isParallel ? trafficNetwork.getThreadPool() : null;
+		final Iterator<Request> iterator = queuedRequests.values().iterator();
+		while (iterator.hasNext() && ((Settings.maxNumReRoutesPerStep <= 0)
+				|| (submittedRequests.size() < Settings.maxNumReRoutesPerStep))) {
+			final Request request = iterator.next();
+			iterator.remove();
+			// Requests are computed when applied if routing must be serial
+			if (isParallel) {
+				request.task = threadPool.submit(new Callable<ArrayList<RouteLeg>>() {
+					@Override
+					public ArrayList<RouteLeg> call() {
+						return request.createRoute();
+					}
+				});
+			}
+			submittedRequests.add(request);
+		}
+	}
+}
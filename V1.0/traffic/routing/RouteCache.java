@@ -0,0 +1,125 @@
+package traffic.routing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import traffic.road.Edge;
+import traffic.vehicle.VehicleType;
+import traffic.vehicle.VehicleUtil;
+
+/**
+ * Routes created recently, keyed on the start edge, the end edge and whether
+ * the vehicle can use tram tracks. The least recently used route is removed
+ * when the cache is full.
+ *
+ * A route in the cache is shared by all the vehicles that get it, so it must
+ * not be modified after it is added.
+ *
+ * Searches may still be running when the cache is cleared, e.g., background
+ * re-routes while a road is blocked. Their routes are based on the old state
+ * of roads, so they are not added. See {@link #getGeneration()}.
+ *
+ */
+public class RouteCache {
+	final int capacity;
+	final long numEdges;
+	final LinkedHashMap<Long, ArrayList<RouteLeg>> routes;
+	/**
+	 * Numbers of hits and misses since they were taken last time.
+	 */
+	long numHits = 0;
+	long numMisses = 0;
+	/**
+	 * Number of times the cache has been cleared.
+	 */
+	long generation = 0;
+
+	public RouteCache(final int capacity, final int numEdges) {
+		this.capacity = capacity;
+		this.numEdges = numEdges;
+		routes = new LinkedHashMap<Long, ArrayList<RouteLeg>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, ArrayList<RouteLeg>> eldest) {
+				return size() > RouteCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Remove all the routes, e.g., after some roads are blocked or unblocked.
+	 */
+	public synchronized void clear() {
+		routes.clear();
+		generation++;
+	}
+
+	/**
+	 * Get a route from the cache.
+	 *
+	 * @return The route, or null if the route is not in the cache.
+	 */
+	public synchronized ArrayList<RouteLeg> get(final Edge startEdge, final Edge endEdge, final VehicleType type) {
+		final ArrayList<RouteLeg> route = routes.get(getKey(startEdge, endEdge, type));
+		if (route == null) {
+			numMisses++;
+		} else {
+			numHits++;
+		}
+		return route;
+	}
+
+	/**
+	 * Get the generation of the cache, which changes when the cache is
+	 * cleared. A search should get the generation before it starts and give
+	 * it to {@link #put}.
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	long getKey(final Edge startEdge, final Edge endEdge, final VehicleType type) {
+		return getKey(startEdge, endEdge, type, numEdges);
+	}
+
+	/**
+	 * Get a key that identifies the route between two edges for a type of
+	 * vehicle. Vehicle types with the same access to roads share the key.
+	 */
+	static long getKey(final Edge startEdge, final Edge endEdge, final VehicleType type, final long numEdges) {
+		final long key = (startEdge.index * numEdges) + endEdge.index;
+		return (key * 2) + (VehicleUtil.canUseTramTrack(type) ? 1 : 0);
+	}
+
+	/**
+	 * Get the number of hits since the last time this method was called.
+	 */
+	public synchronized long takeNumHits() {
+		final long num = numHits;
+		numHits = 0;
+		return num;
+	}
+
+	/**
+	 * Get the number of misses since the last time this method was called.
+	 */
+	public synchronized long takeNumMisses() {
+		final long num = numMisses;
+		numMisses = 0;
+		return num;
+	}
+
+	/**
+	 * Add a route to the cache. The route is not added if the cache has been
+	 * cleared since the search of the route started.
+	 *
+	 * @param generation
+	 *            Generation of the cache when the search started.
+	 */
+	public synchronized void put(final Edge startEdge, final Edge endEdge, final VehicleType type,
+			final ArrayList<RouteLeg> route, final long generation) {
+		if ((capacity > 0) && (generation == this.generation)) {
+			routes.put(getKey(startEdge, endEdge, type), route);
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package traffic.routing;
 
 import java.util.ArrayList;
+import java.util.Collections;
 
 import traffic.TrafficNetwork;
 import traffic.road.Edge;
@@ -9,51 +10,141 @@ import traffic.vehicle.VehicleType;
 
 public abstract class Routing {
 	public enum Algorithm {
-		DIJKSTRA, RANDOM_A_STAR, SIMPLE
+		DIJKSTRA, RANDOM_A_STAR, SIMPLE, CONTRACTION_HIERARCHIES, ALT_A_STAR, BIDIRECTIONAL_DIJKSTRA, CONGESTION_AWARE
 	}
 
 	TrafficNetwork trafficNetwork;;
+	/**
+	 * Road graph searched by the algorithm.
+	 */
+	RoutingGraph graph;
+	/**
+	 * Contexts for searches on the road network. Searches running at the same
+	 * time use different contexts.
+	 */
+	SearchContextPool contextPool;
 
 	public Routing(final TrafficNetwork trafficNetwork) {
 		this.trafficNetwork = trafficNetwork;
+		graph = trafficNetwork.routingGraph;
+		contextPool = new SearchContextPool(trafficNetwork.nodes.size());
 	}
 
 	public abstract ArrayList<RouteLeg> createCompleteRoute(Edge startEdge,
 			Edge endEdge, VehicleType type);
 
 	/**
-	 * Create a new route from a given vehicle's current edge to its
-	 * destination. The new route must be different to the old route.
+	 * Get a route from the route cache of the traffic network, or create the
+	 * route and add it to the cache. The returned route may be shared by
+	 * multiple vehicles, so it must not be modified.
 	 */
-	public void reRoute(Vehicle vehicle) {
-
-		ArrayList<RouteLeg> oldRoute = vehicle.routeLegs;
-		int currentIndexOnOldRoute = vehicle.indexLegOnRoute;
-
-		// No re-route if vehicle is on last leg
-		if (currentIndexOnOldRoute >= oldRoute.size() - 1) {
-			return;
+	public ArrayList<RouteLeg> createCachedRoute(final Edge startEdge, final Edge endEdge, final VehicleType type) {
+		final RouteCache cache = trafficNetwork.routeCache;
+		if (!isRouteCacheable() || (cache == null)) {
+			return createCompleteRoute(startEdge, endEdge, type);
+		}
+		// Get the generation first, so a route found with old road access is not cached
+		final long generation = cache.getGeneration();
+		ArrayList<RouteLeg> route = cache.get(startEdge, endEdge, type);
+		if (route == null) {
+			route = createCompleteRoute(startEdge, endEdge, type);
+			if (route != null) {
+				cache.put(startEdge, endEdge, type, route, generation);
+			}
 		}
+		return route;
+	}
 
-		// Copy earlier parts of old route to new route
-		ArrayList<RouteLeg> newRoute = new ArrayList<RouteLeg>();
-		for (int i = 0; i <= currentIndexOnOldRoute; i++) {
-			newRoute.add(oldRoute.get(i));
+	/**
+	 * Create the legs of the route found by a search, following the arcs
+	 * through which the nodes are reached back from the destination.
+	 *
+	 * @return The legs, or null if destination is not reached or is the same
+	 *         as the source.
+	 */
+	ArrayList<RouteLeg> createRouteLegs(final SearchContext context, final int destination) {
+		if (!context.isReached(destination)) {
+			return null;
 		}
+		final ArrayList<RouteLeg> legsOnRoute = new ArrayList<>();
+		for (int node = destination; context.previous[node] >= 0; node = graph.arcTail[context.previous[node]]) {
+			legsOnRoute.add(new RouteLeg(graph.getEdge(context.previous[node]), 0));
+		}
+		if (legsOnRoute.size() == 0) {
+			return null;
+		}
+		Collections.reverse(legsOnRoute);
+		RouteUtil.removeRepeatSections(legsOnRoute);
+		return legsOnRoute;
+	}
 
-		ArrayList<RouteLeg> partialRoute = createCompleteRoute(
-				oldRoute.get(currentIndexOnOldRoute + 1).edge,
-				oldRoute.get(oldRoute.size() - 1).edge, vehicle.type);
+	/**
+	 * Whether the route between two edges only changes when roads are blocked
+	 * or unblocked. Only such routes can be cached.
+	 */
+	boolean isRouteCacheable() {
+		return true;
+	}
+
+	/**
+	 * Set the seed of the random numbers used by this algorithm, if any.
+	 */
+	public void setRandomSeed(final long seed) {
+	}
+
+	/**
+	 * Get the weights of arcs with which a shortest path tree gives routes as
+	 * short as the ones created by this algorithm.
+	 *
+	 * @return The weights, or null if this algorithm does not create the
+	 *         shortest routes.
+	 */
+	public float[] getTreeWeights() {
+		return null;
+	}
+
+	/**
+	 * Whether routes are based on the current travel times of edges instead
+	 * of the lengths of edges.
+	 */
+	public boolean isUsingTravelTimes() {
+		return false;
+	}
+
+	/**
+	 * Whether multiple threads can create routes at the same time. The routes
+	 * must be the same as the ones created by a single thread.
+	 */
+	public boolean isParallelRoutingAllowed() {
+		return isRouteCacheable();
+	}
+
+	/**
+	 * Replace the part of a vehicle's route after its current leg with a new
+	 * partial route. The new partial route must start from the start node of
+	 * the next leg on the old route.
+	 *
+	 * @return Whether the route of the vehicle is changed.
+	 */
+	static boolean setPartialRoute(final Vehicle vehicle, final ArrayList<RouteLeg> partialRoute) {
+		final ArrayList<RouteLeg> oldRoute = vehicle.routeLegs;
+		final int currentIndexOnOldRoute = vehicle.indexLegOnRoute;
 		// The next leg on the old route cannot be the next leg on the new
 		// route!
 		if (partialRoute != null
 				&& partialRoute.get(0).edge != oldRoute
 						.get(currentIndexOnOldRoute + 1).edge) {
+			// Copy earlier parts of old route to new route
+			final ArrayList<RouteLeg> newRoute = new ArrayList<RouteLeg>(
+					currentIndexOnOldRoute + 1 + partialRoute.size());
+			for (int i = 0; i <= currentIndexOnOldRoute; i++) {
+				newRoute.add(oldRoute.get(i));
+			}
 			newRoute.addAll(partialRoute);
-			vehicle.routeLegs = newRoute;
-
+			vehicle.setRouteLegs(newRoute);
+			return true;
 		}
-
+		return false;
 	}
 
 }
@@ -0,0 +1,153 @@
+package traffic.routing;
+
+import traffic.road.Edge;
+import traffic.road.RoadNetwork;
+import traffic.road.RoadType;
+import traffic.vehicle.VehicleType;
+import traffic.vehicle.VehicleUtil;
+
+/**
+ * Compact copy of the road network for routing. The graph is built once from
+ * the road network and shared by all the routing algorithms. Searches only
+ * read the graph, so they can run in multiple threads at the same time.
+ *
+ * Each edge of the road network is an arc. The arcs leaving node i are
+ * between index arcStart[i] (inclusive) and arcStart[i + 1] (exclusive). The
+ * arcs entering node i are listed in reverseArcs between index
+ * reverseArcStart[i] (inclusive) and reverseArcStart[i + 1] (exclusive).
+ *
+ * Whether a type of vehicle can use an arc is stored as one bit per vehicle
+ * type in the access mask of the arc. The bits of an arc are cleared when all
+ * the lanes of its edge are blocked.
+ *
+ */
+public class RoutingGraph {
+	public final int numNodes;
+	public final int numArcs;
+	public final int[] arcStart;
+	public final int[] arcHead;
+	public final int[] arcTail;
+	public final float[] arcWeight;
+	/**
+	 * Index of the edge of each arc.
+	 */
+	public final int[] arcEdge;
+	/**
+	 * Index of the arc of each edge.
+	 */
+	public final int[] edgeArc;
+	public final int[] reverseArcStart;
+	public final int[] reverseArcs;
+	/**
+	 * Vehicle types that can use the arc regardless of blocked lanes.
+	 */
+	final byte[] typeMasks;
+	/**
+	 * Vehicle types that can use the arc at the moment.
+	 */
+	final byte[] accessMasks;
+	final Edge[] edges;
+
+	/**
+	 * Get the bit of a vehicle type in access masks.
+	 */
+	public static byte getAccessBit(final VehicleType type) {
+		return (byte) (1 << type.ordinal());
+	}
+
+	public RoutingGraph(final RoadNetwork roadNetwork) {
+		numNodes = roadNetwork.nodes.size();
+		numArcs = roadNetwork.edges.size();
+		arcStart = new int[numNodes + 1];
+		arcHead = new int[numArcs];
+		arcTail = new int[numArcs];
+		arcWeight = new float[numArcs];
+		arcEdge = new int[numArcs];
+		edgeArc = new int[numArcs];
+		reverseArcStart = new int[numNodes + 1];
+		reverseArcs = new int[numArcs];
+		typeMasks = new byte[numArcs];
+		accessMasks = new byte[numArcs];
+		edges = roadNetwork.edges.toArray(new Edge[numArcs]);
+
+		for (final Edge edge : edges) {
+			arcStart[edge.startNode.index + 1]++;
+			reverseArcStart[edge.endNode.index + 1]++;
+		}
+		for (int i = 0; i < numNodes; i++) {
+			arcStart[i + 1] += arcStart[i];
+			reverseArcStart[i + 1] += reverseArcStart[i];
+		}
+		// Arcs of a node keep the order of the outward edges of the node
+		int arc = 0;
+		for (int i = 0; i < numNodes; i++) {
+			for (final Edge edge : roadNetwork.nodes.get(i).outwardEdges) {
+				arcHead[arc] = edge.endNode.index;
+				arcTail[arc] = edge.startNode.index;
+				arcWeight[arc] = (float) edge.length;
+				arcEdge[arc] = edge.index;
+				edgeArc[edge.index] = arc;
+				arc++;
+			}
+		}
+		final int[] reversePosition = new int[numNodes];
+		for (int a = 0; a < numArcs; a++) {
+			final int head = arcHead[a];
+			reverseArcs[reverseArcStart[head] + reversePosition[head]] = a;
+			reversePosition[head]++;
+		}
+
+		updateAccess();
+	}
+
+	/**
+	 * Check whether a vehicle type, represented by its access bit, can use an
+	 * arc at the moment.
+	 */
+	public boolean canUse(final int arc, final byte accessBit) {
+		return (accessMasks[arc] & accessBit) != 0;
+	}
+
+	/**
+	 * Check whether a vehicle type, represented by its access bit, can use an
+	 * arc when no lane is blocked.
+	 */
+	public boolean canUseIgnoringBlock(final int arc, final byte accessBit) {
+		return (typeMasks[arc] & accessBit) != 0;
+	}
+
+	public Edge getEdge(final int arc) {
+		return edges[arcEdge[arc]];
+	}
+
+	/**
+	 * Compute the access masks of all the arcs. This is needed when the
+	 * settings about which vehicles can use tram tracks are changed.
+	 */
+	public void updateAccess() {
+		byte tramTrackMask = 0;
+		byte roadMask = 0;
+		for (final VehicleType type : VehicleType.values()) {
+			roadMask |= getAccessBit(type);
+			if (VehicleUtil.canUseTramTrack(type)) {
+				tramTrackMask |= getAccessBit(type);
+			}
+		}
+		for (int a = 0; a < numArcs; a++) {
+			typeMasks[a] = getEdge(a).type == RoadType.tram ? tramTrackMask : roadMask;
+			updateAccess(a);
+		}
+	}
+
+	/**
+	 * Update the access mask of an edge after the lanes on the edge are
+	 * blocked or unblocked.
+	 */
+	public void updateAccess(final Edge edge) {
+		updateAccess(edgeArc[edge.index]);
+	}
+
+	void updateAccess(final int arc) {
+		accessMasks[arc] = VehicleUtil.isEdgeBlocked(getEdge(arc)) ? 0 : typeMasks[arc];
+	}
+}
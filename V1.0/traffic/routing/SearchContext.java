@@ -0,0 +1,87 @@
+package traffic.routing;
+
+/**
+ * State of one search on the road network, such as the distances to nodes and
+ * the queue of nodes to visit. The values of a node are only valid if the node
+ * is reached in the current search. This is checked by comparing the stamp of
+ * the node with the stamp of the search, so the values do not need to be
+ * reset before a new search. A context must only be used by one search at a
+ * time.
+ *
+ */
+class SearchContext {
+	/**
+	 * Known distance from the source of the search.
+	 */
+	double[] dist;
+	/**
+	 * Index of the arc through which a node is reached.
+	 */
+	int[] previous;
+	int[] reachedStamp;
+	int[] settledStamp;
+	/**
+	 * Estimated distance to the destination of the search.
+	 */
+	double[] heuristic;
+	int[] heuristicStamp;
+	int stamp = 0;
+	IndexedHeap heap;
+
+	SearchContext(final int numNodes) {
+		dist = new double[numNodes];
+		previous = new int[numNodes];
+		reachedStamp = new int[numNodes];
+		settledStamp = new int[numNodes];
+		heuristic = new double[numNodes];
+		heuristicStamp = new int[numNodes];
+		heap = new IndexedHeap(numNodes);
+	}
+
+	double getDist(final int node) {
+		return reachedStamp[node] == stamp ? dist[node] : Double.POSITIVE_INFINITY;
+	}
+
+	boolean hasHeuristic(final int node) {
+		return heuristicStamp[node] == stamp;
+	}
+
+	boolean isReached(final int node) {
+		return reachedStamp[node] == stamp;
+	}
+
+	boolean isSettled(final int node) {
+		return settledStamp[node] == stamp;
+	}
+
+	void setDist(final int node, final double dist, final int previous) {
+		this.dist[node] = dist;
+		this.previous[node] = previous;
+		reachedStamp[node] = stamp;
+	}
+
+	void setHeuristic(final int node, final double heuristic) {
+		this.heuristic[node] = heuristic;
+		heuristicStamp[node] = stamp;
+	}
+
+	void settle(final int node) {
+		settledStamp[node] = stamp;
+	}
+
+	/**
+	 * Start a new search. The stamps are cleared when the stamp value runs out.
+	 */
+	void startSearch() {
+		heap.clear();
+		if (stamp == Integer.MAX_VALUE) {
+			for (int i = 0; i < reachedStamp.length; i++) {
+				reachedStamp[i] = 0;
+				settledStamp[i] = 0;
+				heuristicStamp[i] = 0;
+			}
+			stamp = 0;
+		}
+		stamp++;
+	}
+}
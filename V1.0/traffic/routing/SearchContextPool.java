@@ -0,0 +1,29 @@
+package traffic.routing;
+
+import java.util.ArrayList;
+
+/**
+ * Pool of search contexts. Each search takes a context from the pool and
+ * returns it afterwards, so multiple threads can search on the same graph at
+ * the same time while the contexts are reused.
+ *
+ */
+class SearchContextPool {
+	final int numNodes;
+	final ArrayList<SearchContext> freeContexts = new ArrayList<>();
+
+	SearchContextPool(final int numNodes) {
+		this.numNodes = numNodes;
+	}
+
+	synchronized SearchContext acquire() {
+		if (freeContexts.isEmpty()) {
+			return new SearchContext(numNodes);
+		}
+		return freeContexts.remove(freeContexts.size() - 1);
+	}
+
+	synchronized void release(final SearchContext context) {
+		freeContexts.add(context);
+	}
+}
@@ -0,0 +1,158 @@
+package traffic.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import common.Settings;
+import traffic.TrafficNetwork;
+import traffic.road.Edge;
+import traffic.vehicle.VehicleType;
+import traffic.vehicle.VehicleUtil;
+
+/**
+ * Shortest path trees from the start nodes of routes. A tree contains the
+ * shortest routes from its start node to all the other nodes, so the routes
+ * of many vehicles starting from the same node can be taken from one tree
+ * instead of searching for each vehicle. This helps when vehicles are
+ * created in a small area, e.g., in a source window.
+ *
+ * A tree is kept for a number of steps. All the trees are removed when roads
+ * are blocked or unblocked. The least recently used tree is removed when there
+ * are too many trees.
+ *
+ */
+public class ShortestPathTrees {
+
+	/**
+	 * Shortest path tree from a node for the vehicles with the same access to
+	 * roads.
+	 */
+	class Tree {
+		/**
+		 * Arc through which each node is reached, which is -1 for the start
+		 * node and the nodes that cannot be reached.
+		 */
+		int[] previousArcs = null;
+		final double timeCreated;
+
+		Tree(final double timeCreated) {
+			this.timeCreated = timeCreated;
+		}
+	}
+
+	final int maxNumTrees = 64;
+	TrafficNetwork trafficNetwork;
+	RoutingGraph graph;
+	SearchContextPool contextPool;
+	final LinkedHashMap<Long, Tree> trees;
+
+	public ShortestPathTrees(final TrafficNetwork trafficNetwork) {
+		this.trafficNetwork = trafficNetwork;
+		graph = trafficNetwork.routingGraph;
+		contextPool = new SearchContextPool(graph.numNodes);
+		trees = new LinkedHashMap<Long, Tree>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, Tree> eldest) {
+				return size() > maxNumTrees;
+			}
+		};
+	}
+
+	/**
+	 * Compute the shortest paths from a node to all the other nodes.
+	 */
+	void buildTree(final Tree tree, final int source, final byte accessBit, final float[] weights) {
+		final SearchContext context = contextPool.acquire();
+		context.startSearch();
+		context.setDist(source, 0, -1);
+		final IndexedHeap unvisited = context.heap;
+		unvisited.push(source, 0);
+		while (!unvisited.isEmpty()) {
+			final int u = unvisited.pop();
+			context.settle(u);
+			for (int a = graph.arcStart[u]; a < graph.arcStart[u + 1]; a++) {
+				if (!graph.canUse(a, accessBit)) {
+					continue;
+				}
+				final int v = graph.arcHead[a];
+				if (context.isSettled(v)) {
+					continue;
+				}
+				final double distanceThroughU = context.dist[u] + weights[a];
+				if (distanceThroughU < context.getDist(v)) {
+					context.setDist(v, distanceThroughU, a);
+					unvisited.push(v, distanceThroughU);
+				}
+			}
+		}
+		final int[] previousArcs = new int[graph.numNodes];
+		for (int i = 0; i < previousArcs.length; i++) {
+			previousArcs[i] = context.isReached(i) ? context.previous[i] : -1;
+		}
+		contextPool.release(context);
+		tree.previousArcs = previousArcs;
+	}
+
+	/**
+	 * Remove all the trees, e.g., after some roads are blocked or unblocked.
+	 */
+	public synchronized void clear() {
+		trees.clear();
+	}
+
+	/**
+	 * Create a route from the shortest path tree of the start node of the
+	 * start edge. The tree is built if it does not exist or is too old.
+	 *
+	 * @return The route, or null if the end edge cannot be reached.
+	 */
+	public ArrayList<RouteLeg> createRoute(final Edge startEdge, final Edge endEdge, final VehicleType type,
+			final float[] weights, final double timeNow) {
+		final int source = startEdge.startNode.index;
+		final byte accessBit = RoutingGraph.getAccessBit(type);
+		final Tree tree = getTree(source, type, timeNow);
+		synchronized (tree) {
+			if (tree.previousArcs == null) {
+				buildTree(tree, source, accessBit, weights);
+			}
+		}
+
+		final int[] previousArcs = tree.previousArcs;
+		final ArrayList<RouteLeg> legsOnRoute = new ArrayList<>();
+		for (int node = endEdge.endNode.index; previousArcs[node] >= 0; node = graph.arcTail[previousArcs[node]]) {
+			legsOnRoute.add(new RouteLeg(graph.getEdge(previousArcs[node]), 0));
+		}
+		if (legsOnRoute.size() == 0) {
+			return null;
+		}
+		Collections.reverse(legsOnRoute);
+		RouteUtil.removeRepeatSections(legsOnRoute);
+		return legsOnRoute;
+	}
+
+	/**
+	 * Get the tree of a node for a type of vehicle. A new tree, which is not
+	 * built yet, replaces the existing tree if the existing tree is too old.
+	 */
+	synchronized Tree getTree(final int source, final VehicleType type, final double timeNow) {
+		final Long key = (source * 2L) + (VehicleUtil.canUseTramTrack(type) ? 1 : 0);
+		Tree tree = trees.get(key);
+		if ((tree == null)
+				|| ((timeNow - tree.timeCreated) >= (Settings.numStepsToKeepShortestPathTree / Settings.numStepsPerSecond))) {
+			tree = new Tree(timeNow);
+			trees.put(key, tree);
+		}
+		return tree;
+	}
+
+	/**
+	 * Check whether routes should be taken from the trees when the current
+	 * routing algorithm is used.
+	 */
+	public boolean isUsable() {
+		return (Settings.numStepsToKeepShortestPathTree > 0)
+				&& (trafficNetwork.routingAlgorithm.getTreeWeights() != null);
+	}
+}
@@ -56,6 +56,11 @@ public class Simple extends Routing {
 
 	}
 
+	@Override
+	boolean isRouteCacheable() {
+		return false;
+	}
+
 	public ArrayList<RouteLeg> createCompleteRoute(Edge startEdge,
 			Edge endEdge, VehicleType type) {
 		Node currentNode = startEdge.startNode;
@@ -177,4 +182,9 @@ public class Simple extends Routing {
 
 		return nextEdgeOnRoute;
 	}
+
+	@Override
+	public void setRandomSeed(final long seed) {
+		random.setSeed(seed);
+	}
 }
@@ -13,46 +13,59 @@ import traffic.vehicle.SlowdownFactor;
 public class IDM {
 
 	VehicleUtil vehicleUtil;
+	/**
+	 * Virtual vehicle objects that store the impeding objects of slow-down
+	 * factors, indexed by the ordinal of slow-down factor.
+	 */
+	Vehicle[] impedingObjectsOfFactors = new Vehicle[SlowdownFactor.values().length];
 
 	public IDM(final VehicleUtil vU) {
 		vehicleUtil = vU;
+		for (int i = 0; i < impedingObjectsOfFactors.length; i++) {
+			impedingObjectsOfFactors[i] = new Vehicle();
+		}
 	}
 
 	/**
 	 * Calculates the acceleration of vehicle based on its relation to an
-	 * impeding object.
+	 * impeding object. The state of the vehicle is read from the vehicle state
+	 * store.
 	 *
 	 */
 	public double computeAcceleration(final Vehicle vehicle, final Vehicle impedingObject) {
+		final VehicleStateStore states = vehicleUtil.vehicleStates;
+		final int slot = vehicle.slot;
+		final int profileId = states.profileId[slot];
+
 		/*
 		 * Actual bumper-to-bumper distance from the end of the front vehicle to
 		 * the head of this vehicle. Value is in meters.
 		 */
-		final double s = impedingObject.headPosition - impedingObject.length - vehicle.headPosition;
+		final double s = impedingObject.headPosition - impedingObject.length - states.headPosition[slot];
 
 		/*
 		 * Current speed of this vehicle
 		 */
-		final double v = vehicle.speed;
+		final double v = states.speed[slot];
 
 		/*
 		 * Difference between the speed of this vehicle and the speed of the
 		 * front vehicle
 		 */
-		final double dV = vehicle.speed - impedingObject.speed;
+		final double dV = v - impedingObject.speed;
 
 		/*
 		 * Desired dynamic distance
 		 */
-		final double sS = vehicle.driverProfile.IDM_s0 + (v * vehicle.driverProfile.IDM_T)
-				+ ((v * dV) / (2 * Math.sqrt(vehicle.driverProfile.IDM_a * vehicle.driverProfile.IDM_b)));
+		final double sS = VehicleStateStore.IDM_s0[profileId] + (v * VehicleStateStore.IDM_T[profileId])
+				+ ((v * dV) / (2 * Math.sqrt(VehicleStateStore.IDM_a[profileId] * VehicleStateStore.IDM_b[profileId])));
 		/*
 		 * Desired speed
 		 */
 		// Must be within vehicle capability and road speed limit
-		double v0 = vehicle.lane.edge.freeFlowSpeed;
-		if (v0 > vehicle.type.maxSpeed) {
-			v0 = vehicle.type.maxSpeed;
+		double v0 = states.freeFlowSpeed[slot];
+		if (v0 > states.maxSpeed[slot]) {
+			v0 = states.maxSpeed[slot];
 		}
 		/*
 		 * Acceleration exponent
@@ -61,7 +74,8 @@ public class IDM {
 		/*
 		 * Acceleration
 		 */
-		final double acceleration = vehicle.driverProfile.IDM_a * (1 - Math.pow(v / v0, delta) - Math.pow(sS / s, 2));
+		final double acceleration = VehicleStateStore.IDM_a[profileId]
+				* (1 - Math.pow(v / v0, delta) - Math.pow(sS / s, 2));
 
 		return acceleration;
 	}
@@ -102,23 +116,33 @@ public class IDM {
 	 *
 	 */
 	public double updateBasedOnAllFactors(final Vehicle vehicle) {
-		final Vehicle impedingObject = new Vehicle();
-		double lowestAcceleration = getLowerAccelerationAndUpdateSlowdownFactor(vehicle, impedingObject, 10000,
-				computeAccelerationWithImpedingObject(vehicle, impedingObject, vehicle.lane, SlowdownFactor.FRONT));
-		lowestAcceleration = getLowerAccelerationAndUpdateSlowdownFactor(vehicle, impedingObject, lowestAcceleration,
-				computeAccelerationWithImpedingObject(vehicle, impedingObject, vehicle.lane, SlowdownFactor.TRAM));
-		lowestAcceleration = getLowerAccelerationAndUpdateSlowdownFactor(vehicle, impedingObject, lowestAcceleration,
-				computeAccelerationWithImpedingObject(vehicle, impedingObject, vehicle.lane, SlowdownFactor.LIGHT));
-		lowestAcceleration = getLowerAccelerationAndUpdateSlowdownFactor(vehicle, impedingObject, lowestAcceleration,
-				computeAccelerationWithImpedingObject(vehicle, impedingObject, vehicle.lane, SlowdownFactor.CONFLICT));
-		lowestAcceleration = getLowerAccelerationAndUpdateSlowdownFactor(vehicle, impedingObject, lowestAcceleration,
-				computeAccelerationWithImpedingObject(vehicle, impedingObject, vehicle.lane, SlowdownFactor.TURN));
-		lowestAcceleration = getLowerAccelerationAndUpdateSlowdownFactor(vehicle, impedingObject, lowestAcceleration,
-				computeAccelerationWithImpedingObject(vehicle, impedingObject, vehicle.lane, SlowdownFactor.LANEBLOCK));
-		lowestAcceleration = getLowerAccelerationAndUpdateSlowdownFactor(vehicle, impedingObject, lowestAcceleration,
-				computeAccelerationWithImpedingObject(vehicle, impedingObject, vehicle.lane,
-						SlowdownFactor.PRIORITY_VEHICLE));
+		// Find the impeding objects of all the factors in one pass
+		vehicleUtil.updateImpedingObjectsOfAllFactors(vehicle, impedingObjectsOfFactors);
+		double lowestAcceleration = 10000;
+		lowestAcceleration = getLowerAccelerationWithImpedingObject(vehicle, lowestAcceleration, SlowdownFactor.FRONT);
+		lowestAcceleration = getLowerAccelerationWithImpedingObject(vehicle, lowestAcceleration, SlowdownFactor.TRAM);
+		lowestAcceleration = getLowerAccelerationWithImpedingObject(vehicle, lowestAcceleration, SlowdownFactor.LIGHT);
+		lowestAcceleration = getLowerAccelerationWithImpedingObject(vehicle, lowestAcceleration,
+				SlowdownFactor.CONFLICT);
+		lowestAcceleration = getLowerAccelerationWithImpedingObject(vehicle, lowestAcceleration, SlowdownFactor.TURN);
+		lowestAcceleration = getLowerAccelerationWithImpedingObject(vehicle, lowestAcceleration,
+				SlowdownFactor.LANEBLOCK);
+		lowestAcceleration = getLowerAccelerationWithImpedingObject(vehicle, lowestAcceleration,
+				SlowdownFactor.PRIORITY_VEHICLE);
 
 		return lowestAcceleration;
 	}
+
+	/**
+	 * Gets the lower acceleration between a given value and the acceleration
+	 * based on the impeding object of a slow-down factor. The impeding object
+	 * must have been found by
+	 * {@link VehicleUtil#updateImpedingObjectsOfAllFactors(Vehicle, Vehicle[])}.
+	 */
+	double getLowerAccelerationWithImpedingObject(final Vehicle vehicle, final double acceleration,
+			final SlowdownFactor factor) {
+		final Vehicle impedingObject = impedingObjectsOfFactors[factor.ordinal()];
+		return getLowerAccelerationAndUpdateSlowdownFactor(vehicle, impedingObject, acceleration,
+				computeAcceleration(vehicle, impedingObject));
+	}
 }
@@ -1,5 +1,7 @@
 package traffic.vehicle;
 
+import java.util.Random;
+
 /**
  * This class makes lane-change decisions. Current implementation uses MOBIL
  * model, which can be changed to other models.
@@ -10,7 +12,17 @@ public class LaneChange {
 	MOBIL mobil;
 
 	public LaneChange(final VehicleUtil vU) {
-		mobil = new MOBIL(vU);
+		this(vU, new Random());
+	}
+
+	/**
+	 * @param random
+	 *            Random numbers for choosing between two equally good
+	 *            directions. If null, no such choice is made and the decision
+	 *            must be made again by another object.
+	 */
+	public LaneChange(final VehicleUtil vU, final Random random) {
+		mobil = new MOBIL(vU, random);
 	}
 
 	/**
@@ -20,4 +32,16 @@ public class LaneChange {
 	public LaneChangeDirection decideLaneChange(final Vehicle vehicle) {
 		return mobil.decideLaneChange(vehicle);
 	}
+
+	/**
+	 * Whether the latest decision was a random choice between two equally good
+	 * directions.
+	 */
+	public boolean isLastDecisionRandom() {
+		return mobil.isLastDecisionRandom;
+	}
+
+	public void setRandomSeed(final long seed) {
+		mobil.random.setSeed(seed);
+	}
 }
@@ -30,14 +30,26 @@ public class MOBIL {
 
 	Vehicle frontVehicleInTargetLane = new Vehicle();
 
-	Random random = new Random();
+	/**
+	 * Random numbers for choosing between two equally good directions. If
+	 * null, such a choice is not made and the decision is
+	 * {@link LaneChangeDirection#SAME}.
+	 */
+	Random random;
 	VehicleUtil vehicleUtil;
 	Vehicle impedingObject = new Vehicle();
 
 	IDM idm;
 
-	public MOBIL(final VehicleUtil vehicleUtil) {
+	/**
+	 * Whether the latest decision was made by random choice between two
+	 * equally good directions.
+	 */
+	boolean isLastDecisionRandom = false;
+
+	public MOBIL(final VehicleUtil vehicleUtil, final Random random) {
 		this.vehicleUtil = vehicleUtil;
+		this.random = random;
 		idm = new IDM(vehicleUtil);
 	}
 
@@ -48,6 +60,7 @@ public class MOBIL {
 	 */
 	public LaneChangeDirection decideLaneChange(final Vehicle vehicle) {
 		LaneChangeDirection decision = LaneChangeDirection.SAME;
+		isLastDecisionRandom = false;
 		double overallGainForChangeTowardsRoadside = 0, overallGainForChangeAwayFromRoadside = 0;
 
 		if (isSafeToChange(vehicle, LaneChangeDirection.TOWARDS_ROADSIDE)) {
@@ -80,7 +93,10 @@ public class MOBIL {
 				&& ((overallGainForChangeTowardsRoadside - overallGainForChangeAwayFromRoadside) > 0)) {
 			decision = LaneChangeDirection.TOWARDS_ROADSIDE;
 		} else if ((overallGainForChangeAwayFromRoadside > 0) && (overallGainForChangeTowardsRoadside > 0)) {
-			if (random.nextBoolean()) {
+			isLastDecisionRandom = true;
+			if (random == null) {
+				decision = LaneChangeDirection.SAME;
+			} else if (random.nextBoolean()) {
 				decision = LaneChangeDirection.AWAY_FROM_ROADSIDE;
 			} else {
 				decision = LaneChangeDirection.TOWARDS_ROADSIDE;
@@ -2,13 +2,23 @@ package traffic.vehicle;
 
 import java.util.ArrayList;
 
+import common.Settings;
 import traffic.road.Edge;
 import traffic.road.Lane;
 import traffic.routing.RouteLeg;
 
 public class Vehicle {
 	public String id = "";
-	public ArrayList<RouteLeg> routeLegs = new ArrayList<>(1000);
+	/**
+	 * Legs of route. Use {@link #setRouteLegs(ArrayList)} to change the route,
+	 * so the distances to the legs are updated.
+	 */
+	public ArrayList<RouteLeg> routeLegs = new ArrayList<>();
+	/**
+	 * Distance from the start of route to the start of each leg. The last
+	 * value is the length of the whole route.
+	 */
+	public double[] distToLegStart = { 0 };
 	public VehicleType type = null;
 	public double headPosition = 0;
 	public Lane lane = null;
@@ -28,6 +38,11 @@ public class Vehicle {
 	public double spdOfImpedingObject = 0;
 	public double timeOfLastLaneChange = 0;
 	public boolean isRoadBlockedAhead = false;
+	/**
+	 * Whether a new route has been requested for this vehicle and not given
+	 * to the vehicle yet.
+	 */
+	public boolean isWaitingForReRoute = false;
 	/**
 	 * The ID of the latest light group. This vehicle will ignore other traffic
 	 * lights in the same group if it passes one of the lights in the group.
@@ -46,4 +61,92 @@ public class Vehicle {
 	 * The edge where vehicle will make a left turn
 	 */
 	public Edge edgeBeforeTurnLeft = null;
+	/**
+	 * Index of this vehicle in the vehicle list and the vehicle state store of
+	 * traffic network. The value is -1 if the vehicle is not in the network.
+	 */
+	public int slot = -1;
+	/**
+	 * Index of this vehicle in the parked vehicles of an edge. The value is -1
+	 * if the vehicle is not parked.
+	 */
+	public int indexInParkedVehicles = -1;
+	/**
+	 * Handle of this vehicle in the traffic reports of its worker. The value
+	 * is -1 if the vehicle has no handle.
+	 */
+	public int reportHandle = -1;
+	/**
+	 * Number of consecutive attempts to leave parking that failed because
+	 * there was no space on road.
+	 */
+	public int numFailedAttemptsToLeaveParking = 0;
+	/*
+	 * The last leg within look-ahead distance, which is found when the
+	 * vehicle is at the given position.
+	 */
+	int horizonIndexLegOnRoute = -1;
+	double horizonHeadPosition;
+	double horizonLookAheadDistance;
+	int horizonIndexLastLeg;
+
+	/**
+	 * Get the distance from the start of the current leg to the start of a
+	 * given leg.
+	 */
+	public double getDistToLegStart(final int indexLeg) {
+		return distToLegStart[indexLeg] - distToLegStart[indexLegOnRoute];
+	}
+
+	/**
+	 * Find the first leg that ends at or beyond a given distance, which is
+	 * measured from the start of the current leg. The search starts from the
+	 * current leg.
+	 *
+	 * @return Index of the leg, or the index of the last leg if the route ends
+	 *         before the distance.
+	 */
+	public int getIndexLegEndingAtDist(final double dist) {
+		final double target = distToLegStart[indexLegOnRoute] + dist;
+		int low = indexLegOnRoute;
+		int high = routeLegs.size() - 1;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (distToLegStart[mid + 1] >= target) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Get the index of the last leg within look-ahead distance from the head
+	 * of this vehicle. The result is reused until the vehicle moves, so
+	 * look-ahead searches in the same step share one search.
+	 */
+	public int getIndexLastLegInLookAhead() {
+		if ((horizonIndexLegOnRoute != indexLegOnRoute) || (horizonHeadPosition != headPosition)
+				|| (horizonLookAheadDistance != Settings.lookAheadDistance)) {
+			horizonIndexLegOnRoute = indexLegOnRoute;
+			horizonHeadPosition = headPosition;
+			horizonLookAheadDistance = Settings.lookAheadDistance;
+			horizonIndexLastLeg = getIndexLegEndingAtDist(headPosition + Settings.lookAheadDistance);
+		}
+		return horizonIndexLastLeg;
+	}
+
+	/**
+	 * Set the legs of route and compute the distances to the legs. This is
+	 * done when route is created or changed.
+	 */
+	public void setRouteLegs(final ArrayList<RouteLeg> routeLegs) {
+		this.routeLegs = routeLegs;
+		distToLegStart = new double[routeLegs.size() + 1];
+		for (int i = 0; i < routeLegs.size(); i++) {
+			distToLegStart[i + 1] = distToLegStart[i] + routeLegs.get(i).edge.length;
+		}
+		horizonIndexLegOnRoute = -1;
+	}
 }
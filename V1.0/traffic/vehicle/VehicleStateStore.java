@@ -0,0 +1,93 @@
+package traffic.vehicle;
+
+import java.util.Arrays;
+
+/**
+ * State of the vehicles in a traffic network, kept in primitive arrays that
+ * are indexed by the slots of vehicles. The simulation step and the traffic
+ * reports read the state from here instead of following the references from
+ * vehicle objects to lanes, edges and driver profiles.
+ *
+ * The state of a vehicle is written by {@link #set(int, Vehicle)} whenever the
+ * vehicle is added to the network or its lane, position or route leg is
+ * changed, so the arrays always agree with the vehicle objects.
+ *
+ */
+public class VehicleStateStore {
+	static final DriverProfile[] profiles = DriverProfile.values();
+	/**
+	 * IDM parameters of driver profiles, indexed by profile id.
+	 */
+	public static final double[] IDM_s0 = new double[profiles.length];
+	public static final double[] IDM_T = new double[profiles.length];
+	public static final double[] IDM_a = new double[profiles.length];
+	public static final double[] IDM_b = new double[profiles.length];
+
+	static {
+		for (int i = 0; i < profiles.length; i++) {
+			IDM_s0[i] = profiles[i].IDM_s0;
+			IDM_T[i] = profiles[i].IDM_T;
+			IDM_a[i] = profiles[i].IDM_a;
+			IDM_b[i] = profiles[i].IDM_b;
+		}
+	}
+
+	public double[] headPosition = new double[0];
+	public double[] speed = new double[0];
+	public double[] acceleration = new double[0];
+	/**
+	 * Index of lane. The value is -1 if vehicle is not on road.
+	 */
+	public int[] laneIndex = new int[0];
+	/**
+	 * Index of the current leg on route.
+	 */
+	public int[] indexLegOnRoute = new int[0];
+	/**
+	 * Ordinal of driver profile.
+	 */
+	public int[] profileId = new int[0];
+	/**
+	 * Free-flow speed of the edge where vehicle is.
+	 */
+	public double[] freeFlowSpeed = new double[0];
+	/**
+	 * Maximum speed of vehicle type.
+	 */
+	public double[] maxSpeed = new double[0];
+
+	void ensureCapacity(final int capacity) {
+		if (capacity <= headPosition.length) {
+			return;
+		}
+		final int length = Math.max(capacity, Math.max(16, headPosition.length * 2));
+		headPosition = Arrays.copyOf(headPosition, length);
+		speed = Arrays.copyOf(speed, length);
+		acceleration = Arrays.copyOf(acceleration, length);
+		laneIndex = Arrays.copyOf(laneIndex, length);
+		indexLegOnRoute = Arrays.copyOf(indexLegOnRoute, length);
+		profileId = Arrays.copyOf(profileId, length);
+		freeFlowSpeed = Arrays.copyOf(freeFlowSpeed, length);
+		maxSpeed = Arrays.copyOf(maxSpeed, length);
+	}
+
+	/**
+	 * Copy the state of a vehicle to a slot.
+	 */
+	public void set(final int slot, final Vehicle vehicle) {
+		ensureCapacity(slot + 1);
+		headPosition[slot] = vehicle.headPosition;
+		speed[slot] = vehicle.speed;
+		acceleration[slot] = vehicle.acceleration;
+		indexLegOnRoute[slot] = vehicle.indexLegOnRoute;
+		profileId[slot] = vehicle.driverProfile.ordinal();
+		maxSpeed[slot] = vehicle.type.maxSpeed;
+		if (vehicle.lane != null) {
+			laneIndex[slot] = vehicle.lane.index;
+			freeFlowSpeed[slot] = vehicle.lane.edge.freeFlowSpeed;
+		} else {
+			laneIndex[slot] = -1;
+			freeFlowSpeed[slot] = 0;
+		}
+	}
+}
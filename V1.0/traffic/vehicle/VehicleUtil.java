@@ -1,15 +1,17 @@
 package traffic.vehicle;
 
-import java.awt.geom.Line2D;
+import java.util.ArrayList;
 
 import common.Settings;
 import traffic.light.LightColor;
 import traffic.light.TrafficLightTiming;
 import traffic.road.Edge;
 import traffic.road.Lane;
+import traffic.road.Movement;
 import traffic.road.Node;
 import traffic.road.RoadType;
 import traffic.road.RoadUtil;
+import traffic.road.TurnDirection;
 import traffic.routing.RouteLeg;
 import traffic.vehicle.SlowdownFactor;
 
@@ -18,42 +20,50 @@ import traffic.vehicle.SlowdownFactor;
  * lights, front vehicles, conflicting traffic at intersection, etc.
  */
 public class VehicleUtil {
+	/**
+	 * State of the vehicles in the traffic network, which is read by the
+	 * models using this object.
+	 */
+	public VehicleStateStore vehicleStates;
 
 	/**
 	 * Compute the GPS coordinates of the head and end of a given vehicle
 	 */
 	public static double[] calculateCoordinates(final Vehicle v) {
-		final double headToEdgeRatio = v.headPosition / v.lane.edge.length;
-		final double tailToEdgeRatio = (v.headPosition - v.length) / v.lane.edge.length;
+		return calculateCoordinates(v.lane, v.headPosition, v.length);
+	}
+
+	/**
+	 * Compute the GPS coordinates of the head and end of a vehicle with the
+	 * given head position and length in a lane
+	 */
+	public static double[] calculateCoordinates(final Lane lane, final double headPosition, final double length) {
+		final double headToEdgeRatio = headPosition / lane.edge.length;
+		final double tailToEdgeRatio = (headPosition - length) / lane.edge.length;
 
-		final double headLon = v.lane.lonStart + (headToEdgeRatio * v.lane.lonLength);
-		final double headLat = v.lane.latStart + (headToEdgeRatio * v.lane.latLength);
-		final double tailLon = v.lane.lonStart + (tailToEdgeRatio * v.lane.lonLength);
-		final double tailLat = v.lane.latStart + (tailToEdgeRatio * v.lane.latLength);
+		final double headLon = lane.lonStart + (headToEdgeRatio * lane.lonLength);
+		final double headLat = lane.latStart + (headToEdgeRatio * lane.latLength);
+		final double tailLon = lane.lonStart + (tailToEdgeRatio * lane.lonLength);
+		final double tailLat = lane.latStart + (tailToEdgeRatio * lane.latLength);
 
 		final double[] coords = { headLon, headLat, tailLon, tailLat };
 		return coords;
 	}
 
 	public static void findEdgeBeforeNextTurn(final Vehicle vehicle) {
-		double examinedDist = 0;
 		vehicle.edgeBeforeTurnLeft = null;
 		vehicle.edgeBeforeTurnRight = null;
-		int indexLegOnRouteBeingChecked = vehicle.indexLegOnRoute;
-		while (indexLegOnRouteBeingChecked < (vehicle.routeLegs.size() - 1)) {
-			final Edge e1 = vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge;
-			final Edge e2 = vehicle.routeLegs.get(indexLegOnRouteBeingChecked + 1).edge;
-
-			if (e1.startNode == e2.endNode) {
-				// Vehicle is going to make U-turn
-				vehicle.edgeBeforeTurnRight = e1;
-			} else if (!e1.name.equals(e2.name) || (e1.type != e2.type)) {
-				final Line2D.Double e1Seg = new Line2D.Double(e1.startNode.lon, e1.startNode.lat * Settings.lonVsLat,
-						e1.endNode.lon, e1.endNode.lat * Settings.lonVsLat);
-				final int ccw = e1Seg.relativeCCW(e2.endNode.lon, e2.endNode.lat * Settings.lonVsLat);
-				if (ccw < 0) {
+		final int indexLastLeg = Math.min(vehicle.getIndexLastLegInLookAhead(), vehicle.routeLegs.size() - 2);
+		for (int i = vehicle.indexLegOnRoute; i <= indexLastLeg; i++) {
+			final Edge e1 = vehicle.routeLegs.get(i).edge;
+			final Edge e2 = vehicle.routeLegs.get(i + 1).edge;
+
+			final Movement movement = e1.getMovement(e2);
+			if (movement != null) {
+				if (movement.turnDirection == TurnDirection.LEFT) {
 					vehicle.edgeBeforeTurnLeft = e1;
-				} else if (ccw > 0) {
+				} else if ((movement.turnDirection == TurnDirection.RIGHT)
+						|| (movement.turnDirection == TurnDirection.U_TURN)) {
 					vehicle.edgeBeforeTurnRight = e1;
 				}
 			}
@@ -61,19 +71,9 @@ public class VehicleUtil {
 			if ((vehicle.edgeBeforeTurnLeft != null) || (vehicle.edgeBeforeTurnRight != null)) {
 				break;
 			}
-
-			examinedDist += e1.length;
-			if (((examinedDist - vehicle.headPosition) < Settings.lookAheadDistance)
-					&& (indexLegOnRouteBeingChecked < (vehicle.routeLegs.size() - 1))) {
-				indexLegOnRouteBeingChecked++;
-			} else {
-				break;
-			}
 		}
 	}
 
-	
-
 	/**
 	 * Get the closest vehicle whose head position is behind the head position
 	 * of a given vehicle. The two vehicles may not be in the same lane.
@@ -142,6 +142,16 @@ public class VehicleUtil {
 		return true;
 	}
 
+	/**
+	 * Check whether a type of vehicle is allowed to travel on tram tracks.
+	 */
+	public static boolean canUseTramTrack(final VehicleType vehicleType) {
+		if (vehicleType == VehicleType.PRIORITY) {
+			return Settings.isAllowPriorityVehicleUseTramTrack;
+		}
+		return vehicleType == VehicleType.TRAM;
+	}
+
 	/**
 	 * Check whether a vehicle can travel from one node to another through an
 	 * edge
@@ -149,12 +159,8 @@ public class VehicleUtil {
 	public static boolean canGoThrough(final Node nodeStart, final Node nodeEnd, final VehicleType vehicleType) {
 		for (final Edge e : nodeStart.outwardEdges) {
 			if (e.endNode == nodeEnd) {
-				if (e.type == RoadType.tram) {
-					if ((vehicleType == VehicleType.PRIORITY) && !Settings.isAllowPriorityVehicleUseTramTrack) {
-						return false;
-					} else if ((vehicleType != VehicleType.PRIORITY) && (vehicleType != VehicleType.TRAM)) {
-						return false;
-					}
+				if ((e.type == RoadType.tram) && !canUseTramTrack(vehicleType)) {
+					return false;
 				}
 				if (!isEdgeBlocked(e)) {
 					return true;
@@ -165,8 +171,8 @@ public class VehicleUtil {
 	}
 
 	public static boolean isEdgeBlocked(Edge edge) {
-		for (final Lane lane : edge.lanes) {
-			if (!lane.isBlocked) {
+		for (int i = 0; i < edge.lanes.size(); i++) {
+			if (!edge.lanes.get(i).isBlocked) {
 				return false;
 			}
 		}
@@ -174,22 +180,12 @@ public class VehicleUtil {
 	}
 
 	public static void updateRoadBlockInfoForVehicle(Vehicle vehicle) {
-		double examinedDist = 0;
-		int indexLegOnRouteBeingChecked = vehicle.indexLegOnRoute;
-		while (indexLegOnRouteBeingChecked <= (vehicle.routeLegs.size() - 1)) {
-			final Edge edgeBeingChecked = vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge;
-			if (isEdgeBlocked(edgeBeingChecked)) {
+		final int indexLastLeg = vehicle.getIndexLastLegInLookAhead();
+		for (int i = vehicle.indexLegOnRoute; i <= indexLastLeg; i++) {
+			if (isEdgeBlocked(vehicle.routeLegs.get(i).edge)) {
 				vehicle.isRoadBlockedAhead = true;
 				return;
 			}
-			examinedDist += vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge.length;
-			// Proceeds to the next leg on route if look-ahead distance is not exhausted
-			if (((examinedDist - vehicle.headPosition) < Settings.lookAheadDistance)
-					&& (indexLegOnRouteBeingChecked < (vehicle.routeLegs.size() - 1))) {
-				indexLegOnRouteBeingChecked++;
-			} else {
-				break;
-			}
 		}
 		vehicle.isRoadBlockedAhead = false;
 	}
@@ -219,11 +215,12 @@ public class VehicleUtil {
 	 * Set or cancel priority lanes within a certain distance.
 	 */
 	public static void setPriorityLanes(final Vehicle vehicle, final boolean isPriority) {
-		double examinedDist = 0;
-		int indexLegOnRoute = vehicle.indexLegOnRoute;
 		int laneNumber = vehicle.lane.laneNumber;
 		Edge edge = vehicle.lane.edge;
-		while ((examinedDist < Settings.lookAheadDistance) && (indexLegOnRoute < (vehicle.routeLegs.size() - 1))) {
+		// Legs starting within look-ahead distance from the start of current leg
+		final int indexLastLeg = Math.min(vehicle.getIndexLegEndingAtDist(Settings.lookAheadDistance),
+				vehicle.routeLegs.size() - 2);
+		for (int indexLegOnRoute = vehicle.indexLegOnRoute; indexLegOnRoute <= indexLastLeg; indexLegOnRoute++) {
 			final Edge targetEdge = vehicle.routeLegs.get(indexLegOnRoute).edge;
 			if (!isPriority) {
 				// Cancel priority status for all the lanes in the edge
@@ -232,15 +229,31 @@ public class VehicleUtil {
 				}
 			} else {
 				// Set priority for the lane that will be used by the vehicle
-				laneNumber = RoadUtil.getLaneNumberForTargetEdge(targetEdge, edge, laneNumber);
+				final Movement movement = edge.getMovement(targetEdge);
+				if (movement != null) {
+					laneNumber = movement.laneNumbers[laneNumber];
+				} else {
+					laneNumber = RoadUtil.getLaneNumberForTargetEdge(targetEdge, edge, laneNumber);
+				}
 				targetEdge.lanes.get(laneNumber).isPriority = true;
 			}
-			examinedDist += targetEdge.length;
-			indexLegOnRoute++;
 			edge = targetEdge;
 		}
 	}
 
+	/**
+	 * All the slow-down factors. This avoids copying the values of the enum
+	 * type for every search.
+	 */
+	static final SlowdownFactor[] slowdownFactors = SlowdownFactor.values();
+
+	/*
+	 * Temporary list for finding conflicting edges. Each thread uses its own
+	 * instance of this class, so the list can be reused without creating new
+	 * objects in every step.
+	 */
+	ArrayList<Edge> conflictingEdges = new ArrayList<>();
+
 	public VehicleUtil() {
 	}
 
@@ -266,54 +279,111 @@ public class VehicleUtil {
 	 */
 	public void updateImpedingObject(final Vehicle vehicle, int indexLegOnRouteBeingChecked, final int laneNumber,
 			final Vehicle impedingObj, final SlowdownFactor factor) {
-		double examinedDist = 0;
 		impedingObj.headPosition = -1; // Initialize front vehicle's position.
-		while ((impedingObj.headPosition < 0) && (indexLegOnRouteBeingChecked <= (vehicle.routeLegs.size() - 1))) {
-			if (factor == SlowdownFactor.FRONT) {
-				updateImpedingObject_Front(vehicle, examinedDist, indexLegOnRouteBeingChecked, laneNumber, impedingObj);
-			} else if (factor == SlowdownFactor.TRAM) {
-				updateImpedingObject_Tram(vehicle, examinedDist,
-						vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge, impedingObj);
-			} else if (factor == SlowdownFactor.LIGHT) {
-				updateImpedingObject_Light(vehicle, examinedDist,
-						vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge, impedingObj);
-			} else if (factor == SlowdownFactor.CONFLICT) {
-				updateImpedingObject_Conflict(vehicle, examinedDist, indexLegOnRouteBeingChecked, impedingObj);
-			} else if (factor == SlowdownFactor.LANEBLOCK) {
-				updateImpedingObject_LaneBlock(vehicle, examinedDist, indexLegOnRouteBeingChecked, impedingObj);
-			} else if (factor == SlowdownFactor.TURN) {
-				updateImpedingObject_Turn(vehicle, examinedDist, indexLegOnRouteBeingChecked, impedingObj);
-			} else if (factor == SlowdownFactor.PRIORITY_VEHICLE) {
-				updateImpedingObject_PriorityVehicle(vehicle, examinedDist, indexLegOnRouteBeingChecked, impedingObj);
+		final int indexLastLeg = vehicle.getIndexLastLegInLookAhead();
+		while ((impedingObj.headPosition < 0) && (indexLegOnRouteBeingChecked <= indexLastLeg)) {
+			// Adjust lane number based on continuity of lane
+			final int laneNumberBeingChecked = RoadUtil.getLaneNumberForTargetEdge(
+					vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge, vehicle.lane.edge,
+					factor == SlowdownFactor.FRONT ? laneNumber : vehicle.lane.laneNumber);
+			updateImpedingObjectInLeg(vehicle, vehicle.getDistToLegStart(indexLegOnRouteBeingChecked),
+					indexLegOnRouteBeingChecked, laneNumberBeingChecked, impedingObj, factor);
+			indexLegOnRouteBeingChecked++;
+		}
+
+		// Make sure there is a virtual impeding object
+		if (impedingObj.headPosition < 0) {
+			setVirtualImpedingObjectFarAhead(vehicle, impedingObj);
+		}
+
+	}
+
+	/**
+	 * Find impeding objects of all the slow-down factors in the current lane
+	 * of a given vehicle. The route legs within look-ahead distance are walked
+	 * once for all the factors. The search of each factor stops at the same leg
+	 * as
+	 * {@link #updateImpedingObject(Vehicle, int, int, Vehicle, SlowdownFactor)}
+	 * does, so the impeding objects are the same as the ones found by
+	 * searching the factors one by one.
+	 *
+	 * @param vehicle
+	 *            The vehicle whose route is used in the search
+	 * @param impedingObjs
+	 *            The virtual vehicle objects that store the properties of the
+	 *            impeding objects, indexed by the ordinal of slow-down factor
+	 */
+	public void updateImpedingObjectsOfAllFactors(final Vehicle vehicle, final Vehicle[] impedingObjs) {
+		final SlowdownFactor[] factors = slowdownFactors;
+		for (final Vehicle impedingObj : impedingObjs) {
+			impedingObj.headPosition = -1;
+		}
+		int numFactorsToSearch = factors.length;
+		final int indexLastLeg = vehicle.getIndexLastLegInLookAhead();
+		for (int indexLegOnRouteBeingChecked = vehicle.indexLegOnRoute; (numFactorsToSearch > 0)
+				&& (indexLegOnRouteBeingChecked <= indexLastLeg); indexLegOnRouteBeingChecked++) {
+			final Edge edgeBeingChecked = vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge;
+			final double examinedDist = vehicle.getDistToLegStart(indexLegOnRouteBeingChecked);
+			// Adjust lane number based on continuity of lane
+			final int laneNumberBeingChecked = RoadUtil.getLaneNumberForTargetEdge(edgeBeingChecked,
+					vehicle.lane.edge, vehicle.lane.laneNumber);
+			for (int i = 0; i < factors.length; i++) {
+				if (impedingObjs[i].headPosition < 0) {
+					updateImpedingObjectInLeg(vehicle, examinedDist, indexLegOnRouteBeingChecked,
+							laneNumberBeingChecked, impedingObjs[i], factors[i]);
+					if (impedingObjs[i].headPosition >= 0) {
+						numFactorsToSearch--;
+					}
+				}
 			}
+		}
+
+		// If no impeding object is found within look-ahead distance, use a
+		// virtual one that moves fast at long distance
+		for (final Vehicle impedingObj : impedingObjs) {
 			if (impedingObj.headPosition < 0) {
-				examinedDist += vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge.length;
-				// Proceeds to the next leg on route if look-ahead distance is
-				// not exhausted
-				if (((examinedDist - vehicle.headPosition) < Settings.lookAheadDistance)
-						&& (indexLegOnRouteBeingChecked < (vehicle.routeLegs.size() - 1))) {
-					indexLegOnRouteBeingChecked++;
-				} else {
-					// If no impeding object is found within look-ahead
-					// distance, returns a virtual one that moves fast at long
-					// distance
-					impedingObj.speed = 100;
-					impedingObj.headPosition = vehicle.headPosition + 10000;
-					impedingObj.type = VehicleType.VIRTUAL_STATIC;
-					impedingObj.length = 0;
-					break;
-				}
+				setVirtualImpedingObjectFarAhead(vehicle, impedingObj);
 			}
 		}
+	}
 
-		// Make sure there is a virtual impeding object
-		if (impedingObj.headPosition < 0) {
-			impedingObj.speed = 100;
-			impedingObj.headPosition = vehicle.headPosition + 10000;
-			impedingObj.type = VehicleType.VIRTUAL_STATIC;
-			impedingObj.length = 0;
+	/**
+	 * Find impeding object based on a certain factor in one leg of the route
+	 * of a given vehicle. The head position of the impeding object is not
+	 * changed if no impeding object is found in the leg.
+	 */
+	void updateImpedingObjectInLeg(final Vehicle vehicle, final double examinedDist,
+			final int indexLegOnRouteBeingChecked, final int laneNumberBeingChecked, final Vehicle impedingObj,
+			final SlowdownFactor factor) {
+		final Edge edgeBeingChecked = vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge;
+		if (factor == SlowdownFactor.FRONT) {
+			updateImpedingObject_Front(vehicle, examinedDist, edgeBeingChecked, laneNumberBeingChecked, impedingObj);
+		} else if (factor == SlowdownFactor.TRAM) {
+			updateImpedingObject_Tram(vehicle, examinedDist, edgeBeingChecked, impedingObj);
+		} else if (factor == SlowdownFactor.LIGHT) {
+			updateImpedingObject_Light(vehicle, examinedDist, edgeBeingChecked, impedingObj);
+		} else if (factor == SlowdownFactor.CONFLICT) {
+			updateImpedingObject_Conflict(vehicle, examinedDist, indexLegOnRouteBeingChecked, impedingObj);
+		} else if (factor == SlowdownFactor.LANEBLOCK) {
+			updateImpedingObject_LaneBlock(vehicle, examinedDist, edgeBeingChecked, laneNumberBeingChecked,
+					impedingObj);
+		} else if (factor == SlowdownFactor.TURN) {
+			updateImpedingObject_Turn(vehicle, examinedDist, indexLegOnRouteBeingChecked, impedingObj);
+		} else if (factor == SlowdownFactor.PRIORITY_VEHICLE) {
+			updateImpedingObject_PriorityVehicle(vehicle, examinedDist, edgeBeingChecked, laneNumberBeingChecked,
+					impedingObj);
 		}
+	}
 
+	/**
+	 * Set a virtual impeding object that moves fast at long distance, i.e.,
+	 * the object does not slow down the given vehicle.
+	 */
+	void setVirtualImpedingObjectFarAhead(final Vehicle vehicle, final Vehicle impedingObj) {
+		impedingObj.speed = 100;
+		impedingObj.headPosition = vehicle.headPosition + 10000;
+		impedingObj.type = VehicleType.VIRTUAL_STATIC;
+		impedingObj.length = 0;
 	}
 
 	/**
@@ -337,8 +407,15 @@ public class VehicleUtil {
 
 			// Gets the earliest time that conflicting traffic arrives at
 			// intersection
-			for (final Edge e : RoadUtil.getConflictingEdges(targetEdge, nextEdge)) {
-				for (final Lane lane : e.lanes) {
+			conflictingEdges.clear();
+			final Movement movement = targetEdge.getMovement(nextEdge);
+			if (movement != null) {
+				movement.getConflictingEdges(conflictingEdges);
+			}
+			for (int i = 0; i < conflictingEdges.size(); i++) {
+				final Edge e = conflictingEdges.get(i);
+				for (int j = 0; j < e.lanes.size(); j++) {
+					final Lane lane = e.lanes.get(j);
 					if (lane.vehicles.size() > 0) {
 						final Vehicle firstV = lane.vehicles.get(0);
 						if (firstV.speed > 0) {
@@ -354,7 +431,8 @@ public class VehicleUtil {
 			// Give way to another road being used by priority vehicles
 			boolean isGiveWayToPriorityVehicle = false;
 			if (!vehicle.lane.isPriority) {
-				for (final Edge e : targetEdge.endNode.inwardEdges) {
+				for (int i = 0; i < targetEdge.endNode.inwardEdges.size(); i++) {
+					final Edge e = targetEdge.endNode.inwardEdges.get(i);
 					if (e == targetEdge) {
 						continue;
 					}
@@ -391,13 +469,8 @@ public class VehicleUtil {
 	 * front vehicle can be in a lane on the left or right of the current lane
 	 * of the given vehicle.
 	 */
-	void updateImpedingObject_Front(final Vehicle vehicle, final double examinedDist,
-			final int indexLegOnRouteBeingChecked, int laneNumber, final Vehicle slowdownObj) {
-
-		final Edge edgeBeingChecked = vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge;
-		// Adjust lane number based on continuity of lane
-		int laneNumberBeingChecked = RoadUtil.getLaneNumberForTargetEdge(edgeBeingChecked, vehicle.lane.edge,
-				laneNumber);
+	void updateImpedingObject_Front(final Vehicle vehicle, final double examinedDist, final Edge edgeBeingChecked,
+			final int laneNumberBeingChecked, final Vehicle slowdownObj) {
 
 		// Returns the closest impeding object, whose head position is in front of the given vehicle.
 		final Lane laneBeingChecked = edgeBeingChecked.lanes.get(laneNumberBeingChecked);
@@ -434,16 +507,11 @@ public class VehicleUtil {
 	 * Find impeding object caused by priority vehicle, e.g. ambulance.
 	 */
 	void updateImpedingObject_PriorityVehicle(final Vehicle vehicle, final double examinedDist,
-			final int indexLegOnRouteBeingChecked, final Vehicle slowdownObj) {
+			final Edge edgeBeingChecked, final int laneNumber, final Vehicle slowdownObj) {
 		if (vehicle.type == VehicleType.PRIORITY) {
 			return;
 		}
 
-		final Edge edgeBeingChecked = vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge;
-		// Adjust lane number based on continuity of lane
-		int laneNumber = RoadUtil.getLaneNumberForTargetEdge(edgeBeingChecked, vehicle.lane.edge,
-				vehicle.lane.laneNumber);
-
 		// Stop vehicle if the emergency strategy requires non-priority vehicles to pull off
 		for (int i = laneNumber + 1; i < edgeBeingChecked.lanes.size(); i++) {
 			if (edgeBeingChecked.lanes.get(i).isPriority
@@ -466,21 +534,14 @@ public class VehicleUtil {
 	 * Find impeding object that is a blocked lane.
 	 */
 	void updateImpedingObject_LaneBlock(final Vehicle vehicle, final double examinedDist,
-			final int indexLegOnRouteBeingChecked, final Vehicle slowdownObj) {
-		if (indexLegOnRouteBeingChecked < vehicle.routeLegs.size()) {
-			final Edge edgeBeingChecked = vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge;
-			// Adjust lane number based on continuity of lane
-			int laneNumber = RoadUtil.getLaneNumberForTargetEdge(edgeBeingChecked, vehicle.lane.edge,
-					vehicle.lane.laneNumber);
-			final Lane targetLane = edgeBeingChecked.lanes.get(laneNumber);
-			if (targetLane.isBlocked) {
-				slowdownObj.speed = 0;
-				slowdownObj.headPosition = (examinedDist
-						+ vehicle.routeLegs.get(indexLegOnRouteBeingChecked).edge.length + vehicle.driverProfile.IDM_s0)
-						- 0.00001;
-				slowdownObj.type = VehicleType.VIRTUAL_STATIC;
-				slowdownObj.length = 0;
-			}
+			final Edge edgeBeingChecked, final int laneNumber, final Vehicle slowdownObj) {
+		final Lane targetLane = edgeBeingChecked.lanes.get(laneNumber);
+		if (targetLane.isBlocked) {
+			slowdownObj.speed = 0;
+			slowdownObj.headPosition = (examinedDist + edgeBeingChecked.length + vehicle.driverProfile.IDM_s0)
+					- 0.00001;
+			slowdownObj.type = VehicleType.VIRTUAL_STATIC;
+			slowdownObj.length = 0;
 		}
 	}
 